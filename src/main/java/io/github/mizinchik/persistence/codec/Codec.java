@@ -0,0 +1,11 @@
+package io.github.mizinchik.persistence.codec;
+
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import org.json.JSONObject;
+
+public interface Codec<T> {
+    void serialize(T object, JsonSerializer serializer, StringBuilder builder);
+
+    T deserialize(JSONObject json, JsonDeserializer<T> deserializer);
+}
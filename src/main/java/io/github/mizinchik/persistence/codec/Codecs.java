@@ -0,0 +1,70 @@
+package io.github.mizinchik.persistence.codec;
+
+import io.github.mizinchik.persistence.annotations.GenerateCodec;
+import io.github.mizinchik.persistence.exceptions.EmptyObjectInstantiationFailedException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import org.json.JSONObject;
+
+public final class Codecs {
+    private static final String SUFFIX = "JvivoCodec";
+    private static final ClassValue<Optional<Codec<?>>> GENERATED = new ClassValue<>() {
+        @Override
+        protected Optional<Codec<?>> computeValue(Class<?> type) {
+            return Optional.ofNullable(loadGenerated(type));
+        }
+    };
+
+    private Codecs() {
+    }
+
+    public static <T> Codec<T> of(Class<T> clazz) {
+        Codec<T> codec = Schema.isRegistered(clazz) ? null : generated(clazz);
+        return codec != null ? codec : RuntimeCodec.of(clazz);
+    }
+
+    public static void remap(Class<?> clazz, JSONObject json) {
+        if (Schema.isRegistered(clazz)) {
+            RuntimeCodec.of(clazz).remap(json);
+        }
+    }
+
+    public static JSONObject stamp(Class<?> clazz, JSONObject json) {
+        if (Schema.isRegistered(clazz)) {
+            RuntimeCodec.of(clazz).stamp(json);
+        }
+        return json;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> generated(Class<T> clazz) {
+        return (Codec<T>) GENERATED.get(clazz).orElse(null);
+    }
+
+    public static String generatedName(String binaryName) {
+        return binaryName.replace('$', '_') + SUFFIX;
+    }
+
+    public static char toChar(String string) {
+        if (string.length() != 1) {
+            throw new RuntimeException("Incorrect char format");
+        }
+        return string.charAt(0);
+    }
+
+    private static Codec<?> loadGenerated(Class<?> type) {
+        if (!type.isAnnotationPresent(GenerateCodec.class)) {
+            return null;
+        }
+        try {
+            return (Codec<?>) Class.forName(generatedName(type.getName()), true, type.getClassLoader())
+                    .getConstructor()
+                    .newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (NoSuchMethodException | InvocationTargetException
+                 | InstantiationException | IllegalAccessException e) {
+            throw new EmptyObjectInstantiationFailedException(e);
+        }
+    }
+}
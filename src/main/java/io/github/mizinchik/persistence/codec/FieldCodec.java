@@ -0,0 +1,397 @@
+package io.github.mizinchik.persistence.codec;
+
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.exceptions.FailedFieldAccessException;
+import io.github.mizinchik.persistence.serialization.JsonNumbers;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import io.github.mizinchik.persistence.serialization.JsonStrings;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.function.BiFunction;
+import org.json.JSONObject;
+
+abstract class FieldCodec {
+    private static final Map<Class<?>, Factory> FACTORIES = Map.of(
+            int.class, IntField::new,
+            long.class, LongField::new,
+            double.class, DoubleField::new,
+            float.class, FloatField::new,
+            boolean.class, BooleanField::new,
+            short.class, ShortField::new,
+            byte.class, ByteField::new,
+            char.class, CharField::new,
+            String.class, TextField::new,
+            Character.class, TextField::new);
+    protected final Field field;
+    protected final String name;
+    protected final MethodHandle getter;
+    protected final MethodHandle setter;
+    private final String key;
+
+    protected FieldCodec(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+        Class<?> type = field.getType().isPrimitive() ? field.getType() : Object.class;
+        this.field = field;
+        this.name = field.getName();
+        this.key = "\"" + name + "\":";
+        this.getter = lookup.unreflectGetter(field)
+                .asType(MethodType.methodType(type, Object.class));
+        this.setter = Modifier.isFinal(field.getModifiers())
+                ? null
+                : lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, type));
+    }
+
+    static FieldCodec of(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+        Class<?> type = field.getType();
+        Factory factory = FACTORIES.get(type);
+        if (factory == null) {
+            factory = Number.class.isAssignableFrom(type) || type == Boolean.class ? BoxedField::new : ObjectField::new;
+        }
+        return factory.create(field, lookup);
+    }
+
+    boolean isWritable() {
+        return setter != null;
+    }
+
+    abstract boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next);
+
+    abstract void read(JSONObject json, Object target, JsonDeserializer<?> deserializer);
+
+    protected StringBuilder key(StringBuilder builder, boolean next) {
+        if (next) {
+            builder.append(',');
+        }
+        return builder.append(key);
+    }
+
+    private static final class IntField extends FieldCodec {
+        private IntField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next) {
+            try {
+                key(builder, next).append((int) getter.invokeExact(object));
+                return true;
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+
+        @Override
+        void read(JSONObject json, Object target, JsonDeserializer<?> deserializer) {
+            int value = json.getInt(name);
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+    }
+
+    private static final class LongField extends FieldCodec {
+        private LongField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next) {
+            try {
+                key(builder, next).append((long) getter.invokeExact(object));
+                return true;
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+
+        @Override
+        void read(JSONObject json, Object target, JsonDeserializer<?> deserializer) {
+            long value = json.getLong(name);
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+    }
+
+    private static final class DoubleField extends FieldCodec {
+        private DoubleField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next) {
+            try {
+                JsonNumbers.append((double) getter.invokeExact(object), key(builder, next));
+                return true;
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+
+        @Override
+        void read(JSONObject json, Object target, JsonDeserializer<?> deserializer) {
+            double value = json.getDouble(name);
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+    }
+
+    private static final class FloatField extends FieldCodec {
+        private FloatField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next) {
+            try {
+                JsonNumbers.append((float) getter.invokeExact(object), key(builder, next));
+                return true;
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+
+        @Override
+        void read(JSONObject json, Object target, JsonDeserializer<?> deserializer) {
+            float value = json.getFloat(name);
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+    }
+
+    private static final class BooleanField extends FieldCodec {
+        private BooleanField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next) {
+            try {
+                key(builder, next).append((boolean) getter.invokeExact(object));
+                return true;
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+
+        @Override
+        void read(JSONObject json, Object target, JsonDeserializer<?> deserializer) {
+            boolean value = json.getBoolean(name);
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+    }
+
+    private static final class ShortField extends FieldCodec {
+        private ShortField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next) {
+            try {
+                key(builder, next).append((short) getter.invokeExact(object));
+                return true;
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+
+        @Override
+        void read(JSONObject json, Object target, JsonDeserializer<?> deserializer) {
+            short value = (short) json.getInt(name);
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+    }
+
+    private static final class ByteField extends FieldCodec {
+        private ByteField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next) {
+            try {
+                key(builder, next).append((byte) getter.invokeExact(object));
+                return true;
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+
+        @Override
+        void read(JSONObject json, Object target, JsonDeserializer<?> deserializer) {
+            byte value = (byte) json.getInt(name);
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+    }
+
+    private static final class CharField extends FieldCodec {
+        private CharField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next) {
+            try {
+                JsonStrings.quote((char) getter.invokeExact(object), key(builder, next));
+                return true;
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+
+        @Override
+        void read(JSONObject json, Object target, JsonDeserializer<?> deserializer) {
+            char value = Codecs.toChar(json.getString(name));
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+    }
+
+    private abstract static class ReferenceField extends FieldCodec {
+        private ReferenceField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        boolean write(Object object, JsonSerializer serializer, StringBuilder builder, boolean next) {
+            Object value;
+            try {
+                value = (Object) getter.invokeExact(object);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+            if (value == null) {
+                return false;
+            }
+            writeValue(value, serializer, key(builder, next));
+            return true;
+        }
+
+        @Override
+        void read(JSONObject json, Object target, JsonDeserializer<?> deserializer) {
+            Object value = json.isNull(name) ? null : readValue(json, deserializer);
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new FailedFieldAccessException(e);
+            }
+        }
+
+        protected abstract void writeValue(Object value, JsonSerializer serializer, StringBuilder builder);
+
+        protected abstract Object readValue(JSONObject json, JsonDeserializer<?> deserializer);
+    }
+
+    private static final class TextField extends ReferenceField {
+        private final boolean isCharacter;
+
+        private TextField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+            isCharacter = field.getType() == Character.class;
+        }
+
+        @Override
+        protected void writeValue(Object value, JsonSerializer serializer, StringBuilder builder) {
+            if (isCharacter) {
+                JsonStrings.quote((Character) value, builder);
+            } else {
+                JsonStrings.quote((String) value, builder);
+            }
+        }
+
+        @Override
+        protected Object readValue(JSONObject json, JsonDeserializer<?> deserializer) {
+            String value = json.getString(name);
+            return isCharacter ? Codecs.toChar(value) : value;
+        }
+    }
+
+    private static final class BoxedField extends ReferenceField {
+        private static final Map<Class<?>, BiFunction<JSONObject, String, Object>> DECODERS = Map.of(
+                Integer.class, JSONObject::getInt,
+                Long.class, JSONObject::getLong,
+                Double.class, JSONObject::getDouble,
+                Float.class, JSONObject::getFloat,
+                Boolean.class, JSONObject::getBoolean,
+                Short.class, (json, key) -> (short) json.getInt(key),
+                Byte.class, (json, key) -> (byte) json.getInt(key),
+                BigDecimal.class, (json, key) -> json.get(key) instanceof BigDecimal decimal
+                        ? decimal
+                        : new BigDecimal(json.get(key).toString()));
+        private final BiFunction<JSONObject, String, Object> decoder;
+
+        private BoxedField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+            decoder = decoderOf(field.getType());
+        }
+
+        @Override
+        protected void writeValue(Object value, JsonSerializer serializer, StringBuilder builder) {
+            if (value instanceof Number number) {
+                JsonNumbers.append(number, builder);
+            } else {
+                builder.append(value);
+            }
+        }
+
+        @Override
+        protected Object readValue(JSONObject json, JsonDeserializer<?> deserializer) {
+            return decoder.apply(json, name);
+        }
+
+        private static BiFunction<JSONObject, String, Object> decoderOf(Class<?> type) {
+            return DECODERS.getOrDefault(type, JSONObject::get);
+        }
+    }
+
+    private static final class ObjectField extends ReferenceField {
+        private ObjectField(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException {
+            super(field, lookup);
+        }
+
+        @Override
+        protected void writeValue(Object value, JsonSerializer serializer, StringBuilder builder) {
+            serializer.serialize(value, builder);
+        }
+
+        @Override
+        protected Object readValue(JSONObject json, JsonDeserializer<?> deserializer) {
+            return deserializer.decodeField(field);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Factory {
+        FieldCodec create(Field field, MethodHandles.Lookup lookup) throws IllegalAccessException;
+    }
+}
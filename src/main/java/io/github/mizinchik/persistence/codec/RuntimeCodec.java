@@ -0,0 +1,125 @@
+package io.github.mizinchik.persistence.codec;
+
+import io.github.mizinchik.persistence.annotations.Transient;
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.exceptions.EmptyObjectInstantiationFailedException;
+import io.github.mizinchik.persistence.exceptions.FailedFieldAccessException;
+import io.github.mizinchik.persistence.exceptions.NoArgumentConstructorMissingException;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONObject;
+
+final class RuntimeCodec<T> implements Codec<T> {
+    private static final ClassValue<RuntimeCodec<?>> CODECS = new ClassValue<>() {
+        @Override
+        protected RuntimeCodec<?> computeValue(Class<?> type) {
+            return new RuntimeCodec<>(type);
+        }
+    };
+    private final Class<T> clazz;
+    private final FieldCodec[] writers;
+    private final FieldCodec[] readers;
+    private final MethodHandle constructor;
+    private final NoSuchMethodException missingConstructor;
+    private final Schema.Mapping mapping;
+
+    private RuntimeCodec(Class<T> clazz) {
+        this.clazz = clazz;
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new FailedFieldAccessException(e);
+        }
+        List<FieldCodec> fields = new ArrayList<>();
+        try {
+            for (Field field : clazz.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers)
+                        && !Modifier.isTransient(modifiers)
+                        && !field.isAnnotationPresent(Transient.class)) {
+                    fields.add(FieldCodec.of(field, lookup));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new FailedFieldAccessException(e);
+        }
+        writers = fields.toArray(FieldCodec[]::new);
+        readers = fields.stream().filter(FieldCodec::isWritable).toArray(FieldCodec[]::new);
+        MethodHandle noArgument = null;
+        NoSuchMethodException missing = null;
+        try {
+            noArgument = lookup.findConstructor(clazz, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException e) {
+            missing = e;
+        } catch (IllegalAccessException e) {
+            throw new EmptyObjectInstantiationFailedException(e);
+        }
+        constructor = noArgument;
+        missingConstructor = missing;
+        mapping = Schema.mapping(clazz);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> RuntimeCodec<T> of(Class<T> clazz) {
+        return (RuntimeCodec<T>) CODECS.get(clazz);
+    }
+
+    static void invalidate(Class<?> clazz) {
+        CODECS.remove(clazz);
+    }
+
+    void remap(JSONObject json) {
+        if (mapping != null) {
+            mapping.apply(json);
+        }
+    }
+
+    void stamp(JSONObject json) {
+        if (mapping != null) {
+            mapping.stamp(json);
+        }
+    }
+
+    @Override
+    public void serialize(T object, JsonSerializer serializer, StringBuilder builder) {
+        builder.append('{');
+        boolean next = mapping != null;
+        if (next) {
+            builder.append('"').append(JsonSerializer.VERSION).append("\":").append(mapping.version());
+        }
+        for (FieldCodec writer : writers) {
+            next |= writer.write(object, serializer, builder, next);
+        }
+        builder.append('}');
+    }
+
+    @Override
+    public T deserialize(JSONObject json, JsonDeserializer<T> deserializer) {
+        remap(json);
+        T prototype = instantiate();
+        deserializer.register(json, prototype);
+        for (FieldCodec reader : readers) {
+            reader.read(json, prototype, deserializer);
+        }
+        return prototype;
+    }
+
+    private T instantiate() {
+        if (constructor == null) {
+            throw new NoArgumentConstructorMissingException(missingConstructor);
+        }
+        try {
+            return clazz.cast((Object) constructor.invokeExact());
+        } catch (Throwable e) {
+            throw new EmptyObjectInstantiationFailedException(e);
+        }
+    }
+}
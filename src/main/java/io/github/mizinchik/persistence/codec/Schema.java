@@ -0,0 +1,261 @@
+package io.github.mizinchik.persistence.codec;
+
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+public final class Schema {
+    private static final Map<Class<?>, Mapping> MAPPINGS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Integer> RANKS = Map.of(
+            byte.class, 1,
+            short.class, 2,
+            char.class, 2,
+            int.class, 3,
+            long.class, 4,
+            float.class, 5,
+            double.class, 6);
+    private static final Map<Class<?>, Class<?>> PRIMITIVES = Map.of(
+            Integer.class, int.class,
+            Long.class, long.class,
+            Double.class, double.class,
+            Float.class, float.class,
+            Short.class, short.class,
+            Byte.class, byte.class,
+            Character.class, char.class,
+            Boolean.class, boolean.class);
+    private final Class<?> clazz;
+    private final List<Rule> rules;
+    private int version;
+
+    private Schema(Class<?> clazz) {
+        this.clazz = clazz;
+        rules = new ArrayList<>();
+        version = 1;
+    }
+
+    public static Schema of(Class<?> clazz) {
+        return new Schema(clazz);
+    }
+
+    public Schema version(int number) {
+        if (number <= version) {
+            throw new IllegalArgumentException("Schema versions must increase");
+        }
+        version = number;
+        return this;
+    }
+
+    public Schema rename(String from, String to) {
+        rules.add(new Rule(RuleKind.RENAME, version, from, to, null));
+        return this;
+    }
+
+    public Schema defaultValue(String field, Object value) {
+        rules.add(new Rule(RuleKind.DEFAULT, version, field, null, encode(value)));
+        return this;
+    }
+
+    public Schema widen(String field, Class<?> from) {
+        rules.add(new Rule(RuleKind.WIDEN, version, field, null, from));
+        return this;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void register() {
+        MAPPINGS.put(clazz, compile());
+        RuntimeCodec.invalidate(clazz);
+    }
+
+    static Mapping mapping(Class<?> clazz) {
+        return MAPPINGS.get(clazz);
+    }
+
+    static boolean isRegistered(Class<?> clazz) {
+        return MAPPINGS.containsKey(clazz);
+    }
+
+    private Mapping compile() {
+        Map<String, List<Alias>> aliases = new HashMap<>();
+        Map<String, Rule> defaults = new HashMap<>();
+        Map<String, Rule> widened = new HashMap<>();
+        for (Rule rule : rules) {
+            switch (rule.kind()) {
+                case RENAME -> {
+                    List<Alias> names = new ArrayList<>();
+                    names.add(new Alias(rule.field(), rule.version()));
+                    names.addAll(aliases.getOrDefault(rule.field(), List.of()));
+                    aliases.remove(rule.field());
+                    aliases.put(rule.target(), names);
+                }
+                case DEFAULT -> defaults.put(rule.field(), rule);
+                default -> widened.put(rule.field(), rule);
+            }
+        }
+        Map<String, FieldMapping> fields = new LinkedHashMap<>();
+        for (String name : Set.copyOf(concat(aliases.keySet(), defaults.keySet(), widened.keySet()))) {
+            Class<?> type = fieldType(name);
+            Rule widening = widened.get(name);
+            if (widening != null && !isWidening((Class<?>) widening.value(), type)) {
+                throw new IllegalArgumentException(((Class<?>) widening.value()).getName()
+                        + " cannot be widened to " + type.getName());
+            }
+            fields.put(name, new FieldMapping(name, type,
+                    aliases.getOrDefault(name, List.of()).toArray(Alias[]::new),
+                    defaults.get(name),
+                    widening == null ? 0 : widening.version()));
+        }
+        return new Mapping(version, fields.values().toArray(FieldMapping[]::new));
+    }
+
+    private Class<?> fieldType(String name) {
+        try {
+            return clazz.getDeclaredField(name).getType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("No field " + name + " in " + clazz.getName(), e);
+        }
+    }
+
+    private static List<String> concat(Set<String> first, Set<String> second, Set<String> third) {
+        List<String> names = new ArrayList<>(first);
+        names.addAll(second);
+        names.addAll(third);
+        return names;
+    }
+
+    private static boolean isWidening(Class<?> from, Class<?> to) {
+        Class<?> source = unboxed(from);
+        Class<?> target = unboxed(to);
+        if (target == String.class) {
+            return source.isPrimitive() || source == String.class;
+        }
+        Integer sourceRank = RANKS.get(source);
+        Integer targetRank = RANKS.get(target);
+        return sourceRank != null && targetRank != null && sourceRank < targetRank && target != char.class;
+    }
+
+    private static Class<?> unboxed(Class<?> type) {
+        return PRIMITIVES.getOrDefault(type, type);
+    }
+
+    private static Object encode(Object value) {
+        if (value == null) {
+            return JSONObject.NULL;
+        } else if (value instanceof Number || value instanceof Boolean || value instanceof String) {
+            return value;
+        } else if (value instanceof Character character) {
+            return character.toString();
+        }
+        return new JSONTokener(new JsonSerializer().serialize(value)).nextValue();
+    }
+
+    private enum RuleKind {
+        RENAME,
+        DEFAULT,
+        WIDEN
+    }
+
+    private record Rule(RuleKind kind, int version, String field, String target, Object value) {
+    }
+
+    private record Alias(String name, int version) {
+    }
+
+    private static final class FieldMapping {
+        private final String name;
+        private final Class<?> type;
+        private final Alias[] aliases;
+        private final Object defaultValue;
+        private final int defaultVersion;
+        private final int widenVersion;
+
+        private FieldMapping(String name, Class<?> type, Alias[] aliases, Rule defaultRule, int widenVersion) {
+            this.name = name;
+            this.type = unboxed(type);
+            this.aliases = aliases;
+            this.defaultValue = defaultRule == null ? null : defaultRule.value();
+            this.defaultVersion = defaultRule == null ? 0 : defaultRule.version();
+            this.widenVersion = widenVersion;
+        }
+
+        void apply(JSONObject json, int stored) {
+            for (int i = 0; i < aliases.length && !json.has(name); i++) {
+                if (stored < aliases[i].version() && json.has(aliases[i].name())) {
+                    json.put(name, json.remove(aliases[i].name()));
+                }
+            }
+            if (stored < defaultVersion && !json.has(name)) {
+                json.put(name, defaultValue);
+            }
+            Object value = json.opt(name);
+            if (stored < widenVersion && value != null && value != JSONObject.NULL) {
+                json.put(name, widen(value));
+            }
+        }
+
+        private Object widen(Object value) {
+            Object widened = value;
+            if (type == String.class) {
+                widened = value.toString();
+            } else if (value instanceof Number number) {
+                widened = convert(number);
+            } else if (value instanceof String text && text.length() == 1) {
+                widened = convert((int) text.charAt(0));
+            }
+            return widened;
+        }
+
+        private Object convert(Number number) {
+            Object converted = number;
+            if (type == long.class) {
+                converted = number.longValue();
+            } else if (type == double.class) {
+                converted = number.doubleValue();
+            } else if (type == float.class) {
+                converted = number.floatValue();
+            } else if (type == int.class) {
+                converted = number.intValue();
+            } else if (type == short.class) {
+                converted = number.shortValue();
+            }
+            return converted;
+        }
+    }
+
+    static final class Mapping {
+        private final int version;
+        private final FieldMapping[] fields;
+
+        private Mapping(int version, FieldMapping[] fields) {
+            this.version = version;
+            this.fields = fields;
+        }
+
+        int version() {
+            return version;
+        }
+
+        void apply(JSONObject json) {
+            int stored = json.optInt(JsonSerializer.VERSION);
+            if (stored < version) {
+                for (FieldMapping field : fields) {
+                    field.apply(json, stored);
+                }
+                json.put(JsonSerializer.VERSION, version);
+            }
+        }
+
+        void stamp(JSONObject json) {
+            json.put(JsonSerializer.VERSION, version);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.Join;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.json.JSONObject;
+
+public final class HashJoin {
+    private static final double LONG_RANGE = 0x1p63;
+
+    private HashJoin() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <L, R> List<Map.Entry<L, R>> pairs(JsonSerialStream<L> left, JsonSerialStream<R> right,
+                                                     Join<L, R> join, boolean buildLeft) {
+        Side leftSide = new Side(left, join.getLeftClass(), join.getLeftKey(), join.getLeftFilter(),
+                json -> new JsonDeserializer<>(json, join.getLeftClass()).instance());
+        Side rightSide = new Side(right, join.getRightClass(), join.getRightKey(), join.getRightFilter(),
+                json -> new JsonDeserializer<>(json, join.getRightClass()).instance());
+        return execute(leftSide, rightSide, buildLeft, (leftObject, rightObject) ->
+                Map.entry((L) leftObject, (R) rightObject));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <L, R> List<Map.Entry<Map<String, Object>, Map<String, Object>>> fields(
+            JsonSerialStream<L> left, JsonSerialStream<R> right, Join<L, R> join, boolean buildLeft) {
+        Side leftSide = new Side(left, join.getLeftClass(), join.getLeftKey(), join.getLeftFilter(),
+                projection(join.getLeftClass(), join.getLeftKey(), join.getLeftFields()));
+        Side rightSide = new Side(right, join.getRightClass(), join.getRightKey(), join.getRightFilter(),
+                projection(join.getRightClass(), join.getRightKey(), join.getRightFields()));
+        return execute(leftSide, rightSide, buildLeft, (leftFields, rightFields) ->
+                Map.entry((Map<String, Object>) leftFields, (Map<String, Object>) rightFields));
+    }
+
+    private static <O> List<O> execute(Side left, Side right, boolean buildLeft, Combiner<O> combiner) {
+        Side build = buildLeft ? left : right;
+        Side probe = buildLeft ? right : left;
+        Map<Object, List<Object>> table = new HashMap<>();
+        try (Stream<JSONObject> records = build.stream().filteredJson(build.filter())) {
+            records.forEach(json -> {
+                Object key = build.key(json);
+                if (key != null) {
+                    table.computeIfAbsent(key, ignored -> new ArrayList<>()).add(build.converter().apply(json));
+                }
+            });
+        }
+        List<O> result = new ArrayList<>();
+        if (table.isEmpty()) {
+            return result;
+        }
+        try (Stream<JSONObject> records = probe.stream().filteredJson(probe.filter())) {
+            records.forEach(json -> {
+                List<Object> matches = table.get(probe.key(json));
+                if (matches == null) {
+                    return;
+                }
+                Object converted = probe.converter().apply(json);
+                for (Object match : matches) {
+                    result.add(buildLeft ? combiner.combine(match, converted) : combiner.combine(converted, match));
+                }
+            });
+        }
+        return result;
+    }
+
+    private static Function<JSONObject, Object> projection(Class<?> clazz, String key, Set<String> fields) {
+        Set<String> projected = new HashSet<>(fields);
+        projected.add(key);
+        return json -> {
+            Map<String, Object> values = new JsonDeserializer<>(json, clazz).getRelevantFields(projected);
+            Map<String, Object> ordered = new LinkedHashMap<>();
+            ordered.put(key, values.get(key));
+            for (String field : fields) {
+                ordered.put(field, values.get(field));
+            }
+            return ordered;
+        };
+    }
+
+    private static Object normalize(Object key) {
+        Object normalized = key;
+        if (key instanceof Integer || key instanceof Long || key instanceof Short || key instanceof Byte) {
+            normalized = ((Number) key).longValue();
+        } else if (key instanceof Number number) {
+            normalized = normalize(number.doubleValue());
+        } else if (key instanceof Character character) {
+            normalized = character.toString();
+        }
+        return normalized;
+    }
+
+    private static Object normalize(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < LONG_RANGE) {
+            return (long) value;
+        }
+        return value;
+    }
+
+    private interface Combiner<O> {
+        O combine(Object left, Object right);
+    }
+
+    private record Side(JsonSerialStream<?> stream, Class<?> clazz, String keyField, AttributeFilter filter,
+                        Function<JSONObject, Object> converter) {
+        private Object key(JSONObject json) {
+            return normalize(new JsonDeserializer<>(json, clazz).getRelevantFields(Set.of(keyField)).get(keyField));
+        }
+    }
+}
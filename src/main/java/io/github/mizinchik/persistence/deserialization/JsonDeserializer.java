@@ -1,20 +1,23 @@
 package io.github.mizinchik.persistence.deserialization;
 
-import io.github.mizinchik.persistence.annotations.Transient;
+import io.github.mizinchik.persistence.annotations.Lazy;
+import io.github.mizinchik.persistence.codec.Codecs;
 import io.github.mizinchik.persistence.exceptions.EmptyObjectInstantiationFailedException;
 import io.github.mizinchik.persistence.exceptions.FailedCollectionDeserializationException;
 import io.github.mizinchik.persistence.exceptions.FailedFieldAccessException;
 import io.github.mizinchik.persistence.exceptions.FailedMapDeserializationException;
 import io.github.mizinchik.persistence.exceptions.NoArgumentConstructorMissingException;
 import io.github.mizinchik.persistence.exceptions.ParametrizedTypeDeserializationException;
+import io.github.mizinchik.persistence.exceptions.UnknownFieldNameException;
 import io.github.mizinchik.persistence.exceptions.UnsupportedParametrizedCollection;
 import io.github.mizinchik.persistence.exceptions.UnsupportedParametrizedMap;
-import java.lang.reflect.Constructor;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -25,32 +28,49 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 public class JsonDeserializer<T> implements Deserializer<T> {
-    private ArrayList<?> arrayList;
+    private static final int PARALLEL_THRESHOLD = 2048;
+    private static final int MIN_CHUNK = 256;
+    private static final int CHUNKS_PER_WORKER = 4;
     private final Object json;
     private JSONObject jsonObject;
     private final Class<T> clazz;
+    private final Graph graph;
+    private final ForkJoinPool pool;
 
     public JsonDeserializer(Object json, Class<T> clazz) {
-        this.json = json;
-        if (clazz.getTypeParameters().length > 0) {
-            throw new ParametrizedTypeDeserializationException();
-        }
-        this.clazz = clazz;
+        this(json, clazz, new Graph(json), null);
     }
 
     public JsonDeserializer(JSONObject json, Class<T> clazz) {
+        this(json, clazz, new Graph(json), null);
+    }
+
+    private JsonDeserializer(Object json, Class<T> clazz, Graph graph, ForkJoinPool pool) {
         this.json = json;
-        this.jsonObject = json;
+        this.jsonObject = json instanceof JSONObject object ? object : null;
         if (clazz.getTypeParameters().length > 0) {
             throw new ParametrizedTypeDeserializationException();
         }
         this.clazz = clazz;
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    public JsonDeserializer<T> parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    public JsonDeserializer<T> parallel(ForkJoinPool pool) {
+        return new JsonDeserializer<>(json, clazz, graph, pool);
     }
 
     public Map<String, Object> getRelevantFields(Set<String> fieldNames) {
@@ -65,6 +85,7 @@ public class JsonDeserializer<T> implements Deserializer<T> {
     public Object getField(String fieldName) {
         Object result = null;
         try {
+            Codecs.remap(clazz, jsonObject);
             Class targetFieldType = clazz.getDeclaredField(fieldName).getType();
             if (targetFieldType.isPrimitive()
                     || targetFieldType == Character.class
@@ -100,87 +121,71 @@ public class JsonDeserializer<T> implements Deserializer<T> {
         return result;
     }
 
-    @Override
-    public T instance() {
+    public Object decodeField(String fieldName) {
         try {
-            jsonObject = (JSONObject) json;
-            Constructor<T> constructor = clazz.getConstructor();
-            constructor.setAccessible(true);
-            T prototype = constructor.newInstance();
-            List<Field> fields = Arrays.stream(clazz.getDeclaredFields())
-                    .filter(JsonDeserializer::isEligibleField)
-                    .toList();
-            for (var field : fields) {
-                field.setAccessible(true);
-                setField(field, prototype);
+            return decodeField(clazz.getDeclaredField(fieldName));
+        } catch (NoSuchFieldException e) {
+            throw new UnknownFieldNameException(e);
+        }
+    }
+
+    public Object decodeField(Field field) {
+        Object node = jsonObject.get(field.getName());
+        if (node != JSONObject.NULL && field.isAnnotationPresent(Lazy.class)) {
+            Object lazy = lazy(node, field);
+            if (lazy != null) {
+                return lazy;
             }
-            return prototype;
-        } catch (NoSuchMethodException e) {
-            throw new NoArgumentConstructorMissingException(e);
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
-            throw new EmptyObjectInstantiationFailedException(e);
         }
+        return decode(node, field);
     }
 
-    @SuppressWarnings({"MultipleStringLiterals", "CyclomaticComplexity"})
-    private void setField(Field field, T prototype) {
-        Class<?> fieldType = field.getType();
-        String fieldName = field.getName();
+    @SuppressWarnings("unchecked")
+    private Object lazy(Object node, Field field) {
+        Class<?> type = field.getType();
+        if (type == List.class) {
+            return new LazyList<>(() -> (List<Object>) decode(node, field));
+        } else if (type == Set.class) {
+            return new LazySet<>(() -> (Set<Object>) decode(node, field));
+        } else if (type == Map.class) {
+            return new LazyMap<>(() -> (Map<Object, Object>) decode(node, field));
+        }
+        return null;
+    }
+
+    private Object decode(Object node, Field field) {
         try {
-            if (fieldType.isPrimitive() || fieldType == Character.class) {
-                if (fieldType == int.class) {
-                    field.setInt(prototype, jsonObject.getInt(fieldName));
-                } else if (fieldType == boolean.class) {
-                    field.setBoolean(prototype, jsonObject.getBoolean(fieldName));
-                } else if (fieldType == short.class) {
-                    field.setShort(prototype, (short) jsonObject.getInt(fieldName));
-                } else if (fieldType == char.class || fieldType == Character.class) {
-                    String string = jsonObject.getString(fieldName);
-                    if (string.length() != 1) {
-                        throw new RuntimeException("Incorrect char format");
-                    }
-                    field.setChar(prototype, string.charAt(0));
-                } else if (fieldType == double.class) {
-                    field.setDouble(prototype, jsonObject.getDouble(fieldName));
-                } else if (fieldType == float.class) {
-                    field.setFloat(prototype, jsonObject.getFloat(fieldName));
-                } else if (fieldType == byte.class) {
-                    field.setByte(prototype, (byte) jsonObject.getInt(fieldName));
-                } else if (fieldType == long.class) {
-                    field.setLong(prototype, jsonObject.getLong(fieldName));
-                } else {
-                    throw new RuntimeException("Unknown primitive");
-                }
-            } else if (Number.class.isAssignableFrom(fieldType)) {
-                if (jsonObject.get(fieldName) == JSONObject.NULL) {
-                    field.set(prototype, null);
-                } else {
-                    if (fieldType == Integer.class) {
-                        field.set(prototype, jsonObject.get(fieldName));
-                    } else if (fieldType == Boolean.class) {
-                        field.set(prototype, jsonObject.getBoolean(fieldName));
-                    } else if (fieldType == Short.class) {
-                        field.set(prototype, (short) jsonObject.getInt(fieldName));
-                    } else if (fieldType == Double.class) {
-                        field.set(prototype, jsonObject.getDouble(fieldName));
-                    } else if (fieldType == Float.class) {
-                        field.set(prototype, jsonObject.getFloat(fieldName));
-                    } else if (fieldType == Byte.class) {
-                        field.set(prototype, (byte) jsonObject.getInt(fieldName));
-                    } else if (fieldType == Long.class) {
-                        field.set(prototype, jsonObject.getLong(fieldName));
-                    } else {
-                        throw new RuntimeException("Unknown primitive");
-                    }
-                }
-            } else {
-                field.set(prototype, getField(jsonObject.get(field.getName()), field));
-            }
+            return getField(node, field);
         } catch (IllegalAccessException e) {
             throw new FailedFieldAccessException(e);
         }
     }
 
+    @Override
+    public T instance() {
+        jsonObject = (JSONObject) json;
+        if (jsonObject.has(JsonSerializer.REF)) {
+            return clazz.cast(graph.resolve(jsonObject.getInt(JsonSerializer.REF), clazz));
+        }
+        if (jsonObject.has(JsonSerializer.ID)) {
+            Object known = graph.get(jsonObject.getInt(JsonSerializer.ID));
+            if (known != null) {
+                return clazz.cast(known);
+            }
+        }
+        return Codecs.of(clazz).deserialize(jsonObject, this);
+    }
+
+    public void register(JSONObject json, Object instance) {
+        if (json.has(JsonSerializer.ID)) {
+            graph.put(json.getInt(JsonSerializer.ID), instance);
+        }
+    }
+
+    private <E> JsonDeserializer<E> child(JSONObject node, Class<E> type) {
+        return new JsonDeserializer<>(node, type, graph, null);
+    }
+
     private Object getField(Object object, Field field) throws IllegalAccessException {
         if (object == JSONObject.NULL) {
             return null;
@@ -190,7 +195,7 @@ public class JsonDeserializer<T> implements Deserializer<T> {
             Object result;
             switch (object) {
                 case JSONObject jsonObject:
-                        result = new JsonDeserializer<>(jsonObject, field.getType()).instance();
+                        result = child(jsonObject, field.getType()).instance();
                         break;
                 case JSONArray objects:
                     Class<?> type = field.getType();
@@ -203,7 +208,9 @@ public class JsonDeserializer<T> implements Deserializer<T> {
                     }
                     break;
                 default:
-                    result = object;
+                    result = object instanceof Number && field.getType() == BigDecimal.class
+                            ? getNumber(object, BigDecimal.class)
+                            : object;
             }
             return result;
         }
@@ -222,25 +229,16 @@ public class JsonDeserializer<T> implements Deserializer<T> {
         }
     }
 
-    @SuppressWarnings("CyclomaticComplexity")
     private Collection<?> getCollection(Type collectionGenericType, Type elementType, JSONArray array) {
-        Collection collection = instantiateCollection(((ParameterizedType) collectionGenericType).getRawType());
-        if (elementType instanceof ParameterizedType parameterizedType) {
-            Type[] typeArgs = parameterizedType.getActualTypeArguments();
-            if (Collection.class.isAssignableFrom((Class) elementType)) {
-                if (typeArgs.length != 1) {
-                    throw new UnsupportedParametrizedCollection();
-                }
-                for (var arrayElement : array) {
-                    collection.add(getCollection(elementType, typeArgs[0], (JSONArray) arrayElement));
-                }
-            } else if (Map.class.isAssignableFrom(((Class) elementType))) {
-                if (typeArgs.length != 2) {
-                    throw new UnsupportedParametrizedMap();
-                }
-                for (var arrayElement : array) {
-                    collection.add(getMap(elementType, typeArgs[0], typeArgs[1], (JSONObject) arrayElement));
-                }
+        return fillCollection(instantiateCollection(((ParameterizedType) collectionGenericType).getRawType()),
+                elementType, array);
+    }
+
+    @SuppressWarnings("CyclomaticComplexity")
+    private Collection<?> fillCollection(Collection collection, Type elementType, JSONArray array) {
+        if (elementType instanceof ParameterizedType) {
+            for (var arrayElement : array) {
+                collection.add(getObject(arrayElement, elementType));
             }
         } else {
             int length = array.length();
@@ -266,9 +264,14 @@ public class JsonDeserializer<T> implements Deserializer<T> {
                 elementSupplier = array::getFloat;
             } else if (elementClass == Short.class || elementClass == short.class) {
                 elementSupplier = (index) -> (short) array.getNumber(index);
+            } else if (elementClass == Boolean.class || elementClass == boolean.class) {
+                elementSupplier = array::getBoolean;
             } else if (elementClass.isArray()) {
                 elementSupplier = array::getJSONArray;
                 filler = (obj) -> collection.add(getArray((JSONArray) obj, elementClass.getComponentType()));
+            } else if (pool != null && length >= PARALLEL_THRESHOLD && !graph.hasReferences()) {
+                collection.addAll(decodeParallel(array, elementClass));
+                return collection;
             } else {
                 elementSupplier = array::getJSONObject;
                 filler = (obj) -> collection.add(getCollectionElement((JSONObject) obj, elementType));
@@ -301,48 +304,89 @@ public class JsonDeserializer<T> implements Deserializer<T> {
         }
     }
 
+    private List<Object> decodeParallel(JSONArray array, Class<?> elementClass) {
+        int length = array.length();
+        int chunk = Math.max(MIN_CHUNK, length / (pool.getParallelism() * CHUNKS_PER_WORKER));
+        List<ForkJoinTask<List<Object>>> tasks = new ArrayList<>();
+        for (int from = 0; from < length; from += chunk) {
+            int start = from;
+            int end = Math.min(length, from + chunk);
+            tasks.add(pool.submit(() -> {
+                List<Object> part = new ArrayList<>(end - start);
+                for (int i = start; i < end; i++) {
+                    part.add(child(array.getJSONObject(i), elementClass).instance());
+                }
+                return part;
+            }));
+        }
+        List<Object> elements = new ArrayList<>(length);
+        for (ForkJoinTask<List<Object>> task : tasks) {
+            elements.addAll(task.join());
+        }
+        return elements;
+    }
+
     private Object getCollectionElement(JSONObject arrayElement, Type singleType) {
-        return new JsonDeserializer<>(arrayElement, (Class<?>) singleType).instance();
+        return child(arrayElement, (Class<?>) singleType).instance();
     }
 
-    private Object getArray(JSONArray array, Class componentType) {
-        try {
-            ArrayList arrayListToGet = (ArrayList) getCollection(
-                    this.getClass().getDeclaredField("arrayList").getGenericType(),
-                    componentType,
-                    array);
-            Object result;
-            if (componentType == int.class) {
-                result = arrayListToGet.stream().mapToInt(i -> (int) i).toArray();
-            } else if (componentType == long.class) {
-                result = arrayListToGet.stream().mapToLong(i -> (long) i).toArray();
-            } else if (componentType == double.class) {
-                result = arrayListToGet.stream().mapToDouble(i -> (double) i).toArray();
-            } else if (componentType == Integer.class) {
-                result = arrayListToGet.toArray(new Integer[arrayListToGet.size()]);
-            } else if (componentType == Long.class) {
-                result = arrayListToGet.toArray(new Long[arrayListToGet.size()]);
-            } else if (componentType == Short.class) {
-                result = arrayListToGet.toArray(new Short[arrayListToGet.size()]);
-            } else if (componentType == Byte.class) {
-                result = arrayListToGet.toArray(new Byte[arrayListToGet.size()]);
-            } else if (componentType == Boolean.class) {
-                result = arrayListToGet.toArray(new Boolean[arrayListToGet.size()]);
-            } else if (componentType == Double.class) {
-                result = arrayListToGet.toArray(new Double[arrayListToGet.size()]);
-            } else if (componentType == Float.class) {
-                result = arrayListToGet.toArray(new Float[arrayListToGet.size()]);
-            } else if (componentType == Character.class) {
-                result = arrayListToGet.toArray(new Character[arrayListToGet.size()]);
-            } else if (componentType == String.class) {
-                result = arrayListToGet.toArray(new String[arrayListToGet.size()]);
-            } else {
-                result = null;
+    @SuppressWarnings("CyclomaticComplexity")
+    private Object getArray(JSONArray array, Class<?> componentType) {
+        int length = array.length();
+        Object result;
+        if (!componentType.isPrimitive()) {
+            result = fillCollection(new ArrayList<>(length), componentType, array)
+                    .toArray((Object[]) Array.newInstance(componentType, length));
+        } else if (componentType == int.class) {
+            int[] ints = new int[length];
+            for (int i = 0; i < length; i++) {
+                ints[i] = array.getInt(i);
             }
-            return result;
-        } catch (NoSuchFieldException e) {
-            throw new RuntimeException(e);
+            result = ints;
+        } else if (componentType == long.class) {
+            long[] longs = new long[length];
+            for (int i = 0; i < length; i++) {
+                longs[i] = array.getLong(i);
+            }
+            result = longs;
+        } else if (componentType == double.class) {
+            double[] doubles = new double[length];
+            for (int i = 0; i < length; i++) {
+                doubles[i] = array.getDouble(i);
+            }
+            result = doubles;
+        } else if (componentType == float.class) {
+            float[] floats = new float[length];
+            for (int i = 0; i < length; i++) {
+                floats[i] = array.getFloat(i);
+            }
+            result = floats;
+        } else if (componentType == short.class) {
+            short[] shorts = new short[length];
+            for (int i = 0; i < length; i++) {
+                shorts[i] = (short) array.getInt(i);
+            }
+            result = shorts;
+        } else if (componentType == byte.class) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) array.getInt(i);
+            }
+            result = bytes;
+        } else if (componentType == char.class) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = Codecs.toChar(array.getString(i));
+            }
+            result = chars;
+        } else {
+            boolean[] booleans = new boolean[length];
+            for (int i = 0; i < length; i++) {
+                booleans[i] = array.getBoolean(i);
+            }
+            result = booleans;
         }
+        return result;
     }
 
     private Object getMapField(JSONObject map, Field field) {
@@ -360,7 +404,7 @@ public class JsonDeserializer<T> implements Deserializer<T> {
     private Map<?, ?> getMap(Type mapGenericType, Type keyType, Type valueType, JSONObject object) {
         Map map = instantiateMap(((ParameterizedType) mapGenericType).getRawType());
         for (var key : object.keySet()) {
-            map.put(getObjectFromString(key, keyType), getObjectFromString(object.optString(key), valueType));
+            map.put(getObjectFromString(key, keyType), getObject(object.get(key), valueType));
         }
         return map;
     }
@@ -390,51 +434,99 @@ public class JsonDeserializer<T> implements Deserializer<T> {
         if (value.equals("null")) {
             return null;
         }
+        Object node;
+        if (type == String.class || type == Character.class) {
+            node = value;
+        } else if (value.startsWith("{")) {
+            node = NumberTokener.parseObject(value);
+        } else if (value.startsWith("[")) {
+            node = new JSONArray(value);
+        } else {
+            Number number = NumberTokener.parse(value);
+            node = number != null ? number : JSONObject.stringToValue(value);
+        }
+        return getObject(node, type);
+    }
+
+    @SuppressWarnings("CyclomaticComplexity")
+    private Object getObject(Object node, Type type) {
+        if (node == null || node == JSONObject.NULL) {
+            return null;
+        }
         Object result;
         if (type instanceof ParameterizedType parameterizedType) {
-            Class rawType = (Class) parameterizedType.getRawType();
+            Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+            Type[] typeArgs = parameterizedType.getActualTypeArguments();
             if (Collection.class.isAssignableFrom(rawType)) {
-                result = getCollection(type, ((ParameterizedType) type)
-                        .getActualTypeArguments()[0], new JSONArray(value));
+                if (typeArgs.length != 1) {
+                    throw new UnsupportedParametrizedCollection();
+                }
+                result = getCollection(type, typeArgs[0], (JSONArray) node);
             } else if (Map.class.isAssignableFrom(rawType)) {
-                result = getMap(type, ((ParameterizedType) type)
-                        .getActualTypeArguments()[0], ((ParameterizedType) type)
-                        .getActualTypeArguments()[1], new JSONObject(value));
+                if (typeArgs.length != 2) {
+                    throw new UnsupportedParametrizedMap();
+                }
+                result = getMap(type, typeArgs[0], typeArgs[1], (JSONObject) node);
             } else {
-                result = new JsonDeserializer(new JSONObject(value), rawType).instance();
+                result = child((JSONObject) node, rawType).instance();
             }
         } else {
-            Class clzz = (Class) type;
-            if (type == Integer.class) {
-                result = Integer.parseInt(value);
-            } else if (clzz == Long.class) {
-                result = Long.parseLong(value);
-            } else if (clzz == Short.class) {
-                result = Short.parseShort(value);
-            } else if (clzz == Double.class) {
-                result = Double.parseDouble(value);
-            } else if (clzz == Float.class) {
-                result = Float.parseFloat(value);
-            } else if (clzz == Byte.class) {
-                result = Byte.parseByte(value);
-            } else if (clzz == Character.class) {
-                if (value.length() != 1) {
-                    throw new RuntimeException("Incorrect char format");
-                }
-                result = value.charAt(0);
-            } else if (clzz == Boolean.class) {
-                result = Boolean.parseBoolean(value);
-            } else if (clzz == String.class) {
-                result = value;
-            } else if (clzz.isArray()) {
-                result = getArray(new JSONArray(value), ((Class<?>) type).getComponentType());
+            Class<?> target = (Class<?>) type;
+            if (target == String.class) {
+                result = node.toString();
+            } else if (target == Character.class || target == char.class) {
+                result = Codecs.toChar(node.toString());
+            } else if (target == Boolean.class || target == boolean.class) {
+                result = node instanceof Boolean bool ? bool : Boolean.parseBoolean(node.toString());
+            } else if (Number.class.isAssignableFrom(target) || target.isPrimitive()) {
+                result = getNumber(node, target);
+            } else if (target.isArray()) {
+                result = getArray((JSONArray) node, target.getComponentType());
             } else {
-                result = new JsonDeserializer(new JSONObject(value), clzz).instance();
+                result = child((JSONObject) node, target).instance();
             }
         }
         return result;
     }
 
+    @SuppressWarnings("CyclomaticComplexity")
+    private static Object getNumber(Object node, Class<?> clazz) {
+        Number number = toNumber(node, clazz);
+        Object result;
+        if (clazz == Integer.class || clazz == int.class) {
+            result = number.intValue();
+        } else if (clazz == Long.class || clazz == long.class) {
+            result = number.longValue();
+        } else if (clazz == Double.class || clazz == double.class) {
+            result = number.doubleValue();
+        } else if (clazz == Float.class || clazz == float.class) {
+            result = number.floatValue();
+        } else if (clazz == Short.class || clazz == short.class) {
+            result = number.shortValue();
+        } else if (clazz == Byte.class || clazz == byte.class) {
+            result = number.byteValue();
+        } else if (clazz == BigDecimal.class && !(number instanceof BigDecimal)) {
+            result = new BigDecimal(number.toString());
+        } else {
+            result = number;
+        }
+        return result;
+    }
+
+    private static Number toNumber(Object node, Class<?> clazz) {
+        Number number;
+        if (node instanceof Number value) {
+            number = value;
+        } else if (clazz == Double.class || clazz == double.class) {
+            number = Double.valueOf(node.toString());
+        } else if (clazz == Float.class || clazz == float.class) {
+            number = Float.valueOf(node.toString());
+        } else {
+            number = new BigDecimal(node.toString());
+        }
+        return number;
+    }
+
     @Override
     public Collection<T> collection() {
         Collection<T> list = new ArrayList<>();
@@ -454,10 +546,58 @@ public class JsonDeserializer<T> implements Deserializer<T> {
                 .findAny().get(), keyClazz, clazz, (JSONObject) json);
     }
 
-    private static boolean isEligibleField(Field field) {
-        int modifiers = field.getModifiers();
-        return !field.isAnnotationPresent(Transient.class)
-                && !Modifier.isTransient(modifiers)
-                && !Modifier.isFinal(modifiers);
+    private static final class Graph {
+        private final Object root;
+        private final Map<Integer, Object> instances;
+        private Map<Integer, JSONObject> nodes;
+
+        private Graph(Object root) {
+            this.root = root;
+            instances = new ConcurrentHashMap<>();
+        }
+
+        private Object get(int id) {
+            return instances.get(id);
+        }
+
+        private void put(int id, Object instance) {
+            instances.put(id, instance);
+        }
+
+        private Object resolve(int id, Class<?> type) {
+            Object known = instances.get(id);
+            if (known == null) {
+                JSONObject target = nodes().get(id);
+                known = target == null ? null : new JsonDeserializer<>(target, type, this, null).instance();
+            }
+            return known;
+        }
+
+        private boolean hasReferences() {
+            return !nodes().isEmpty();
+        }
+
+        private synchronized Map<Integer, JSONObject> nodes() {
+            if (nodes == null) {
+                nodes = new HashMap<>();
+                index(root, nodes);
+            }
+            return nodes;
+        }
+
+        private static void index(Object node, Map<Integer, JSONObject> nodes) {
+            if (node instanceof JSONObject object) {
+                if (object.has(JsonSerializer.ID)) {
+                    nodes.put(object.getInt(JsonSerializer.ID), object);
+                }
+                for (String key : object.keySet()) {
+                    index(object.get(key), nodes);
+                }
+            } else if (node instanceof JSONArray array) {
+                for (Object element : array) {
+                    index(element, nodes);
+                }
+            }
+        }
     }
 }
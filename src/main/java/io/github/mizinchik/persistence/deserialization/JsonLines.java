@@ -0,0 +1,146 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+public final class JsonLines {
+    private JsonLines() {
+    }
+
+    public static Stream<JSONObject> records(Path path) {
+        try {
+            return records(Files.newBufferedReader(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Stream<JSONObject> records(Reader source) {
+        BufferedReader reader = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source);
+        Iterator<JSONObject> records;
+        try {
+            records = isArray(reader) ? new ArrayRecords(reader) : new LineRecords(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private static boolean isArray(BufferedReader reader) throws IOException {
+        int next;
+        do {
+            reader.mark(1);
+            next = reader.read();
+        } while (next != -1 && Character.isWhitespace(next));
+        reader.reset();
+        return next == '[';
+    }
+
+    private abstract static class Records implements Iterator<JSONObject> {
+        private JSONObject next;
+        private boolean done;
+
+        abstract JSONObject advance();
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = advance();
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public JSONObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JSONObject current = next;
+            next = null;
+            return current;
+        }
+    }
+
+    private static final class LineRecords extends Records {
+        private final BufferedReader reader;
+
+        private LineRecords(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        JSONObject advance() {
+            try {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        return NumberTokener.parseObject(line);
+                    } catch (JSONException ignored) {
+                    }
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class ArrayRecords extends Records {
+        private final JSONTokener tokener;
+        private boolean started;
+
+        private ArrayRecords(BufferedReader reader) {
+            tokener = new NumberTokener(reader);
+        }
+
+        @Override
+        JSONObject advance() {
+            try {
+                char next = tokener.nextClean();
+                if (!started) {
+                    started = true;
+                    next = tokener.nextClean();
+                } else if (next == ',') {
+                    next = tokener.nextClean();
+                }
+                while (next != ']' && next != 0) {
+                    tokener.back();
+                    if (tokener.nextValue() instanceof JSONObject object) {
+                        return object;
+                    }
+                    next = tokener.nextClean();
+                    if (next == ',') {
+                        next = tokener.nextClean();
+                    }
+                }
+                return null;
+            } catch (JSONException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -1,29 +1,58 @@
 package io.github.mizinchik.persistence.deserialization;
 
+import io.github.mizinchik.persistence.filtering.Aggregation;
+import io.github.mizinchik.persistence.filtering.Aggregator;
 import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.Ordering;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.json.JSONObject;
 
 public class JsonSerialStream<T> implements SerialStream<T> {
-    private final List<JsonDeserializer<T>> objects;
+    private static final int MAX_RECORDS_IN_MEMORY = 100_000;
+    private final List<JSONObject> objects;
     private final List<File> files;
+    private final List<Supplier<Stream<JSONObject>>> bulks;
     private final Class<T> clazz;
+    private final int maxRecordsInMemory;
 
     public JsonSerialStream(Class<T> clazz) {
+        this(clazz, MAX_RECORDS_IN_MEMORY);
+    }
+
+    public JsonSerialStream(Class<T> clazz, int maxRecordsInMemory) {
         this.clazz = clazz;
+        this.maxRecordsInMemory = maxRecordsInMemory;
         objects = new ArrayList<>();
         files = new ArrayList<>();
+        bulks = new ArrayList<>();
     }
 
     @Override
     public SerialStream<T> add(String json) {
-        objects.add(new JsonDeserializer<>(new JSONObject(json), clazz));
+        objects.add(NumberTokener.parseObject(json));
         return this;
     }
 
@@ -31,10 +60,7 @@ public class JsonSerialStream<T> implements SerialStream<T> {
     public SerialStream<T> addAll(Collection<String> jsons) {
         objects.addAll(jsons
                 .stream()
-                .map(json -> new JsonDeserializer<>(
-                        new JSONObject(
-                                json), clazz
-                ))
+                .map(NumberTokener::parseObject)
                 .toList());
         return this;
     }
@@ -51,43 +77,183 @@ public class JsonSerialStream<T> implements SerialStream<T> {
         return this;
     }
 
+    @Override
+    public SerialStream<T> addBulk(Path json) {
+        bulks.add(() -> JsonLines.records(json));
+        return this;
+    }
+
+    @Override
+    public SerialStream<T> addBulk(InputStream json) {
+        InputStreamReader reader = new InputStreamReader(json, StandardCharsets.UTF_8);
+        bulks.add(() -> JsonLines.records(reader));
+        return this;
+    }
+
     @Override
     public List<T> toList() {
-        return obtainDeserialStream().map(JsonDeserializer::instance)
-                .toList();
+        return stream().toList();
     }
 
     @Override
     public List<T> toList(AttributeFilter filter) {
+        return stream(filter).toList();
+    }
+
+    @Override
+    public List<T> toListExclude(AttributeFilter filter) {
+        return streamExclude(filter).toList();
+    }
+
+    @Override
+    public List<T> toList(AttributeFilter filter, Ordering ordering) {
+        try (Stream<T> sorted = stream(filter, ordering)) {
+            return sorted.toList();
+        }
+    }
+
+    @Override
+    public Flow.Publisher<T> toPublisher() {
+        return new SerialPublisher<>(this::stream);
+    }
+
+    @Override
+    public Flow.Publisher<T> toPublisher(AttributeFilter filter) {
+        return new SerialPublisher<>(() -> stream(filter));
+    }
+
+    @Override
+    public Object aggregate(AttributeFilter filter, String field, Aggregation aggregation) {
+        Aggregator aggregator = new Aggregator(aggregation);
+        Set<String> fields = necessaryFields(filter, field);
+        obtainDeserialStream().forEach(object -> {
+            Map<String, Object> values = object.getRelevantFields(fields);
+            if (filter == null || filter.evaluate(values)) {
+                aggregator.accept(values.get(field));
+            }
+        });
+        return aggregator.result();
+    }
+
+    @Override
+    public Map<Object, Object> groupBy(AttributeFilter filter, String groupField, String field,
+                                       Aggregation aggregation) {
+        Map<Object, Aggregator> groups = new HashMap<>();
+        Set<String> fields = necessaryFields(filter, field);
+        fields.add(groupField);
+        obtainDeserialStream().forEach(object -> {
+            Map<String, Object> values = object.getRelevantFields(fields);
+            if (filter == null || filter.evaluate(values)) {
+                groups.computeIfAbsent(values.get(groupField), key -> new Aggregator(aggregation))
+                        .accept(values.get(field));
+            }
+        });
+        Map<Object, Object> result = new HashMap<>();
+        groups.forEach((key, aggregator) -> result.put(key, aggregator.result()));
+        return result;
+    }
+
+    private static Set<String> necessaryFields(AttributeFilter filter, String field) {
+        Set<String> fields = new HashSet<>();
+        if (filter != null) {
+            fields.addAll(filter.getNecessaryFields());
+        }
+        fields.add(field);
+        return fields;
+    }
+
+    public Stream<T> stream(AttributeFilter filter, Ordering ordering) {
+        return new OrderedScan<>(clazz, ordering, maxRecordsInMemory).sort(filteredJson(filter));
+    }
+
+    Stream<JSONObject> filteredJson(AttributeFilter filter) {
+        if (filter == null) {
+            return obtainJsonStream();
+        }
+        return obtainJsonStream().filter(json -> filter.evaluate(
+                new JsonDeserializer<>(json, clazz).getRelevantFields(filter.getNecessaryFields())));
+    }
+
+    public Stream<T> stream() {
+        return obtainDeserialStream().map(JsonDeserializer::instance);
+    }
+
+    public Stream<T> stream(AttributeFilter filter) {
         return obtainDeserialStream()
                 .filter(object ->
                         filter.evaluate(object.getRelevantFields(filter.getNecessaryFields())))
-                .map(JsonDeserializer::instance)
-                .toList();
+                .map(JsonDeserializer::instance);
     }
 
-    @Override
-    public List<T> toListExclude(AttributeFilter filter) {
+    public Stream<T> streamExclude(AttributeFilter filter) {
         return obtainDeserialStream()
                 .filter(object ->
                         !filter.evaluate(object.getRelevantFields(filter.getNecessaryFields())))
-                .map(JsonDeserializer::instance)
-                .toList();
+                .map(JsonDeserializer::instance);
     }
 
     private Stream<JsonDeserializer<T>> obtainDeserialStream() {
-        return Stream.concat(
+        return obtainJsonStream().map(json -> new JsonDeserializer<>(json, clazz));
+    }
+
+    private Stream<JSONObject> obtainJsonStream() {
+        return Stream.concat(Stream.concat(
                 objects.stream(),
                 files.stream()
                         .map(file -> {
+                            checkInterrupted();
                             try {
-                                return new JsonDeserializer<>(
-                                        new JSONObject(Files.readString(file.toPath())),
-                                        clazz);
+                                return NumberTokener.parseObject(Files.readString(file.toPath()));
                             } catch (IOException e) {
                                 throw new RuntimeException(e);
                             }
                         })
-        );
+        ), bulkStream().peek(json -> checkInterrupted()));
+    }
+
+    private Stream<JSONObject> bulkStream() {
+        BulkRecords records = new BulkRecords(List.copyOf(bulks));
+        return StreamSupport.stream(records, false).onClose(records::close);
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Scan interrupted");
+        }
+    }
+
+    private static final class BulkRecords extends Spliterators.AbstractSpliterator<JSONObject> {
+        private final Iterator<Supplier<Stream<JSONObject>>> sources;
+        private Stream<JSONObject> current;
+        private Iterator<JSONObject> records;
+
+        private BulkRecords(List<Supplier<Stream<JSONObject>>> sources) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.sources = sources.iterator();
+            records = Collections.emptyIterator();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JSONObject> action) {
+            while (!records.hasNext() && sources.hasNext()) {
+                close();
+                current = sources.next().get();
+                records = current.iterator();
+            }
+            boolean advanced = records.hasNext();
+            if (advanced) {
+                action.accept(records.next());
+            } else {
+                close();
+            }
+            return advanced;
+        }
+
+        private void close() {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
     }
 }
@@ -0,0 +1,54 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+
+final class LazyList<E> extends AbstractList<E> implements RandomAccess {
+    private Supplier<List<E>> decoder;
+    private List<E> list;
+
+    LazyList(Supplier<List<E>> decoder) {
+        this.decoder = decoder;
+    }
+
+    synchronized boolean isDecoded() {
+        return decoder == null;
+    }
+
+    private synchronized List<E> list() {
+        if (decoder != null) {
+            list = decoder.get();
+            decoder = null;
+        }
+        return list;
+    }
+
+    @Override
+    public E get(int index) {
+        return list().get(index);
+    }
+
+    @Override
+    public int size() {
+        return list().size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        return list().set(index, element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        list().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        modCount++;
+        return list().remove(index);
+    }
+}
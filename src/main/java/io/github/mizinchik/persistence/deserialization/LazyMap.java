@@ -0,0 +1,57 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+final class LazyMap<K, V> extends AbstractMap<K, V> {
+    private Supplier<Map<K, V>> decoder;
+    private Map<K, V> map;
+
+    LazyMap(Supplier<Map<K, V>> decoder) {
+        this.decoder = decoder;
+    }
+
+    synchronized boolean isDecoded() {
+        return decoder == null;
+    }
+
+    private synchronized Map<K, V> map() {
+        if (decoder != null) {
+            map = decoder.get();
+            decoder = null;
+        }
+        return map;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return map().entrySet();
+    }
+
+    @Override
+    public int size() {
+        return map().size();
+    }
+
+    @Override
+    public V get(Object key) {
+        return map().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map().containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return map().put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return map().remove(key);
+    }
+}
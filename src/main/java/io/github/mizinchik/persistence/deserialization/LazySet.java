@@ -0,0 +1,52 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Supplier;
+
+final class LazySet<E> extends AbstractSet<E> {
+    private Supplier<Set<E>> decoder;
+    private Set<E> set;
+
+    LazySet(Supplier<Set<E>> decoder) {
+        this.decoder = decoder;
+    }
+
+    synchronized boolean isDecoded() {
+        return decoder == null;
+    }
+
+    private synchronized Set<E> set() {
+        if (decoder != null) {
+            set = decoder.get();
+            decoder = null;
+        }
+        return set;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return set().iterator();
+    }
+
+    @Override
+    public int size() {
+        return set().size();
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return set().contains(object);
+    }
+
+    @Override
+    public boolean add(E element) {
+        return set().add(element);
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        return set().remove(object);
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import java.io.Reader;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+public class NumberTokener extends JSONTokener {
+    private static final String DELIMITERS = ",:]}/\\\"[{;=#";
+    private static final int RADIX = 10;
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final int MAX_DOUBLE_DIGITS = 17;
+    private static final double[] POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private final StringBuilder text;
+
+    public NumberTokener(String source) {
+        super(source);
+        text = new StringBuilder();
+    }
+
+    public NumberTokener(Reader reader) {
+        super(reader);
+        text = new StringBuilder();
+    }
+
+    public static JSONObject parseObject(String json) {
+        return new JSONObject(new NumberTokener(json));
+    }
+
+    @Override
+    public Object nextValue() {
+        char c = nextClean();
+        if (c != '-' && !isDigit(c)) {
+            back();
+            return super.nextValue();
+        }
+        text.setLength(0);
+        while (c >= ' ' && DELIMITERS.indexOf(c) < 0) {
+            text.append(c);
+            c = next();
+        }
+        if (!end()) {
+            back();
+        }
+        Number number = parse(text);
+        return number != null ? number : JSONObject.stringToValue(text.toString().trim());
+    }
+
+    public static Number parse(CharSequence text) {
+        Scanner scanner = new Scanner(text);
+        Number number = null;
+        if (scanner.integral()) {
+            number = scanner.atEnd() ? scanner.integer() : scanner.decimal();
+        }
+        return number;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static final class Scanner {
+        private final CharSequence text;
+        private final int end;
+        private final boolean negative;
+        private int position;
+        private long mantissa;
+        private int digits;
+        private int exponent;
+
+        private Scanner(CharSequence text) {
+            this.text = text;
+            int last = text.length();
+            while (last > 0 && text.charAt(last - 1) <= ' ') {
+                last--;
+            }
+            end = last;
+            negative = end > 0 && text.charAt(0) == '-';
+            position = negative ? 1 : 0;
+        }
+
+        private boolean integral() {
+            int start = position;
+            while (position < end && isDigit(text.charAt(position))) {
+                mantissa = mantissa * RADIX + (text.charAt(position++) - '0');
+            }
+            digits = position - start;
+            return digits > 0 && digits <= MAX_LONG_DIGITS && (digits == 1 || text.charAt(start) != '0');
+        }
+
+        private boolean atEnd() {
+            return position == end;
+        }
+
+        private Number integer() {
+            long value = negative ? -mantissa : mantissa;
+            Number number = null;
+            if (value == (int) value && (!negative || value != 0)) {
+                number = (int) value;
+            } else if (value != (int) value) {
+                number = value;
+            }
+            return number;
+        }
+
+        private Double decimal() {
+            Double number = null;
+            if (fraction() && exponent() && atEnd() && digits <= MAX_DOUBLE_DIGITS) {
+                number = toDouble();
+            }
+            return number;
+        }
+
+        private boolean fraction() {
+            boolean valid = true;
+            if (text.charAt(position) == '.') {
+                int start = ++position;
+                while (position < end && isDigit(text.charAt(position))) {
+                    if (digits < MAX_LONG_DIGITS) {
+                        mantissa = mantissa * RADIX + (text.charAt(position) - '0');
+                        exponent--;
+                    }
+                    digits++;
+                    position++;
+                }
+                valid = position > start && (position - start == 1 || text.charAt(position - 1) != '0');
+            }
+            return valid;
+        }
+
+        private boolean exponent() {
+            boolean valid = true;
+            if (position < end && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+                position++;
+                boolean negativeExponent = position < end && text.charAt(position) == '-';
+                if (position < end && (text.charAt(position) == '-' || text.charAt(position) == '+')) {
+                    position++;
+                }
+                int start = position;
+                int explicit = 0;
+                while (position < end && isDigit(text.charAt(position)) && explicit < POWERS.length * RADIX) {
+                    explicit = explicit * RADIX + (text.charAt(position++) - '0');
+                }
+                valid = position > start;
+                exponent += negativeExponent ? -explicit : explicit;
+            }
+            return valid;
+        }
+
+        private double toDouble() {
+            double value;
+            if (digits <= MAX_EXACT_DIGITS && Math.abs(exponent) < POWERS.length) {
+                value = exponent < 0 ? mantissa / POWERS[-exponent] : mantissa * POWERS[exponent];
+                value = negative ? -value : value;
+            } else {
+                value = Double.parseDouble(text.subSequence(0, end).toString());
+            }
+            return value;
+        }
+    }
+}
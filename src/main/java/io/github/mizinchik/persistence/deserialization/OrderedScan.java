@@ -0,0 +1,188 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import io.github.mizinchik.persistence.filtering.Ordering;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.json.JSONObject;
+
+final class OrderedScan<T> {
+    private static final String RUN_PREFIX = "jvivo-run";
+    private static final String RUN_SUFFIX = ".tmp";
+    private final Class<T> clazz;
+    private final Ordering ordering;
+    private final int maxRecordsInMemory;
+    private final Comparator<Keyed> order;
+
+    OrderedScan(Class<T> clazz, Ordering ordering, int maxRecordsInMemory) {
+        this.clazz = clazz;
+        this.ordering = ordering;
+        this.maxRecordsInMemory = maxRecordsInMemory;
+        this.order = Comparator.comparing(Keyed::key, ordering.keyComparator())
+                .thenComparingInt(Keyed::run)
+                .thenComparingLong(Keyed::sequence);
+    }
+
+    Stream<T> sort(Stream<JSONObject> source) {
+        Stream<JSONObject> sorted = ordering.isLimited() ? topK(source) : external(source);
+        return sorted.map(json -> new JsonDeserializer<>(json, clazz).instance());
+    }
+
+    private Stream<JSONObject> topK(Stream<JSONObject> source) {
+        int limit = ordering.getLimit();
+        if (limit == 0) {
+            source.close();
+            return Stream.empty();
+        }
+        PriorityQueue<Keyed> heap = new PriorityQueue<>(limit, order.reversed());
+        long[] sequence = new long[1];
+        try (source) {
+            source.forEach(json -> {
+                Keyed keyed = keyed(json, 0, sequence[0]++);
+                if (heap.size() < limit) {
+                    heap.add(keyed);
+                } else if (order.compare(keyed, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(keyed);
+                }
+            });
+        }
+        List<Keyed> sorted = new ArrayList<>(heap);
+        sorted.sort(order);
+        return sorted.stream().map(Keyed::json);
+    }
+
+    private Stream<JSONObject> external(Stream<JSONObject> source) {
+        List<Path> runs = new ArrayList<>();
+        List<Keyed> buffer = new ArrayList<>();
+        long sequence = 0;
+        try (source) {
+            for (Iterator<JSONObject> iterator = source.iterator(); iterator.hasNext();) {
+                buffer.add(keyed(iterator.next(), 0, sequence++));
+                if (buffer.size() >= maxRecordsInMemory) {
+                    runs.add(spill(buffer));
+                    buffer.clear();
+                }
+            }
+        } catch (RuntimeException e) {
+            delete(runs);
+            throw e;
+        }
+        buffer.sort(order);
+        if (runs.isEmpty()) {
+            return buffer.stream().map(Keyed::json);
+        }
+        if (!buffer.isEmpty()) {
+            runs.add(spill(buffer));
+        }
+        Merge merge = new Merge(runs);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merge, Spliterator.ORDERED), false)
+                .onClose(merge::close);
+    }
+
+    private Path spill(List<Keyed> buffer) {
+        buffer.sort(order);
+        try {
+            Path run = Files.createTempFile(RUN_PREFIX, RUN_SUFFIX);
+            try (BufferedWriter writer = Files.newBufferedWriter(run)) {
+                for (Keyed keyed : buffer) {
+                    writer.write(keyed.json().toString());
+                    writer.newLine();
+                }
+            }
+            return run;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Keyed keyed(JSONObject json, int run, long sequence) {
+        String field = ordering.getField();
+        Object key = new JsonDeserializer<>(json, clazz).getRelevantFields(Set.of(field)).get(field);
+        return new Keyed(key, run, sequence, json);
+    }
+
+    private static void delete(List<Path> runs) {
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private record Keyed(Object key, int run, long sequence, JSONObject json) {
+    }
+
+    private final class Merge implements Iterator<JSONObject> {
+        private final List<Path> runs;
+        private final List<BufferedReader> readers;
+        private final PriorityQueue<Keyed> heads;
+        private long sequence;
+
+        private Merge(List<Path> runs) {
+            this.runs = runs;
+            readers = new ArrayList<>();
+            heads = new PriorityQueue<>(order);
+            try {
+                for (Path run : runs) {
+                    readers.add(Files.newBufferedReader(run));
+                    advance(readers.size() - 1);
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public JSONObject next() {
+            Keyed head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            try {
+                advance(head.run());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return head.json();
+        }
+
+        private void advance(int run) throws IOException {
+            String line = readers.get(run).readLine();
+            if (line != null) {
+                heads.add(keyed(NumberTokener.parseObject(line), run, sequence++));
+            }
+        }
+
+        private void close() {
+            for (BufferedReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                }
+            }
+            delete(runs);
+        }
+    }
+}
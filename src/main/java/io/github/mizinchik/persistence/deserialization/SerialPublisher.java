@@ -0,0 +1,119 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class SerialPublisher<T> implements Flow.Publisher<T> {
+    private final Supplier<? extends Stream<T>> source;
+
+    public SerialPublisher(Supplier<? extends Stream<T>> source) {
+        this.source = source;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        subscriber.onSubscribe(new SerialSubscription<>(subscriber, source));
+    }
+
+    private static final class SerialSubscription<T> implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Supplier<? extends Stream<T>> source;
+        private final AtomicLong demand;
+        private final AtomicInteger work;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private Stream<T> stream;
+        private Iterator<T> iterator;
+        private boolean done;
+
+        private SerialSubscription(Flow.Subscriber<? super T> subscriber, Supplier<? extends Stream<T>> source) {
+            this.subscriber = subscriber;
+            this.source = source;
+            demand = new AtomicLong();
+            work = new AtomicInteger();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0
+                        ? Long.MAX_VALUE
+                        : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (work.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                emit();
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            if (!done) {
+                if (cancelled || invalidRequest != null) {
+                    finish(invalidRequest);
+                } else {
+                    forward();
+                }
+            }
+        }
+
+        private void forward() {
+            RuntimeException failure = null;
+            boolean exhausted = false;
+            try {
+                if (iterator == null) {
+                    stream = source.get();
+                    iterator = stream.iterator();
+                }
+                while (demand.get() > 0 && !cancelled && !exhausted) {
+                    exhausted = !iterator.hasNext();
+                    if (!exhausted) {
+                        subscriber.onNext(iterator.next());
+                        demand.decrementAndGet();
+                    }
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            if (failure != null || exhausted || cancelled) {
+                finish(failure);
+            }
+        }
+
+        private void finish(Throwable error) {
+            done = true;
+            if (stream != null) {
+                stream.close();
+            }
+            if (cancelled) {
+                return;
+            }
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package io.github.mizinchik.persistence.deserialization;
 
+import io.github.mizinchik.persistence.filtering.Aggregation;
 import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.Ordering;
 import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
 
 public interface SerialStream<T> {
     SerialStream<T> add(String json);
@@ -14,9 +20,23 @@ public interface SerialStream<T> {
 
     SerialStream<T> addAllFiles(Collection<File> jsons);
 
+    SerialStream<T> addBulk(Path json);
+
+    SerialStream<T> addBulk(InputStream json);
+
     List<T> toList();
 
     List<T> toList(AttributeFilter filter);
 
     List<T> toListExclude(AttributeFilter filter);
+
+    List<T> toList(AttributeFilter filter, Ordering ordering);
+
+    Flow.Publisher<T> toPublisher();
+
+    Flow.Publisher<T> toPublisher(AttributeFilter filter);
+
+    Object aggregate(AttributeFilter filter, String field, Aggregation aggregation);
+
+    Map<Object, Object> groupBy(AttributeFilter filter, String groupField, String field, Aggregation aggregation);
 }
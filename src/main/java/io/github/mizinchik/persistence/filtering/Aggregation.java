@@ -0,0 +1,9 @@
+package io.github.mizinchik.persistence.filtering;
+
+public enum Aggregation {
+    COUNT,
+    SUM,
+    MIN,
+    MAX,
+    AVG
+}
@@ -0,0 +1,62 @@
+package io.github.mizinchik.persistence.filtering;
+
+public final class Aggregator {
+    private final Aggregation aggregation;
+    private long count;
+    private long integralSum;
+    private double floatingSum;
+    private boolean floating;
+    private Object extreme;
+
+    public Aggregator(Aggregation aggregation) {
+        this.aggregation = aggregation;
+    }
+
+    public void accept(Object value) {
+        if (value == null) {
+            return;
+        }
+        count++;
+        switch (aggregation) {
+            case SUM, AVG -> add(value);
+            case MIN -> {
+                if (extreme == null || RangePredicate.compare(value, extreme) < 0) {
+                    extreme = value;
+                }
+            }
+            case MAX -> {
+                if (extreme == null || RangePredicate.compare(value, extreme) > 0) {
+                    extreme = value;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    public Object result() {
+        return switch (aggregation) {
+            case COUNT -> count;
+            case SUM -> floating ? (Object) (integralSum + floatingSum) : (Object) integralSum;
+            case AVG -> count == 0 ? null : (integralSum + floatingSum) / count;
+            case MIN, MAX -> extreme;
+        };
+    }
+
+    private void add(Object value) {
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException("Cannot aggregate a non-numeric value " + value);
+        }
+        if (!RangePredicate.isIntegral(number)) {
+            floating = true;
+            floatingSum += number.doubleValue();
+            return;
+        }
+        try {
+            integralSum = Math.addExact(integralSum, number.longValue());
+        } catch (ArithmeticException e) {
+            floating = true;
+            floatingSum += number.longValue();
+        }
+    }
+}
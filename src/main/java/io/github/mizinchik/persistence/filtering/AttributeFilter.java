@@ -62,6 +62,35 @@ public class AttributeFilter {
         return this;
     }
 
+    public List<Map.Entry<String, Predicate<?>>> getRequiredPredicates() {
+        for (var filter : filters) {
+            if (!filter.isAnd) {
+                return List.of();
+            }
+        }
+        List<Map.Entry<String, Predicate<?>>> required = new ArrayList<>();
+        required.add(Map.entry(attributeName, (Predicate<?>) predicate));
+        for (var filter : filters) {
+            required.addAll(filter.getRequiredPredicates());
+        }
+        return required;
+    }
+
+    public boolean mayMatch(Map<String, FieldStatistics> statistics) {
+        boolean result = !(predicate instanceof RangePredicate range)
+                || !statistics.containsKey(attributeName)
+                || range.mayMatch(statistics.get(attributeName));
+        for (var filter : filters) {
+            boolean temporary = filter.mayMatch(statistics);
+            if (filter.isAnd) {
+                result = result && temporary;
+            } else {
+                result = result || temporary;
+            }
+        }
+        return result;
+    }
+
     public boolean evaluate(Map<String, Object> necessaryObjects) {
         try {
             if (!necessaryObjects.keySet().containsAll(necessaryFields)) {
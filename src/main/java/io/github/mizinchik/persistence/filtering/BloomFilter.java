@@ -0,0 +1,86 @@
+package io.github.mizinchik.persistence.filtering;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+public final class BloomFilter {
+    private static final int BITS_PER_ELEMENT = 10;
+    private static final int HASHES = 7;
+    private static final int MIX_SHIFT = 33;
+    private static final long FIRST_MIX = 0xff51afd7ed558ccdL;
+    private static final long SECOND_MIX = 0xc4ceb9fe1a85ec53L;
+    private final long[] bits;
+
+    private BloomFilter(long[] bits) {
+        this.bits = bits;
+    }
+
+    public static BloomFilter withExpected(int expected) {
+        int size = Math.max(1, (int) ((long) Math.max(expected, 1) * BITS_PER_ELEMENT / Long.SIZE) + 1);
+        return new BloomFilter(new long[size]);
+    }
+
+    public static boolean isSupported(Object value) {
+        return value instanceof Number || value instanceof String
+                || value instanceof Character || value instanceof Boolean;
+    }
+
+    public void add(Object value) {
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> Integer.SIZE);
+        long size = (long) bits.length * Long.SIZE;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Integer.toUnsignedLong(first + i * second) % size;
+            bits[(int) (bit / Long.SIZE)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(Object value) {
+        if (!isSupported(value)) {
+            return true;
+        }
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> Integer.SIZE);
+        long size = (long) bits.length * Long.SIZE;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Integer.toUnsignedLong(first + i * second) % size;
+            if ((bits[(int) (bit / Long.SIZE)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(bits.length * Long.BYTES);
+        buffer.asLongBuffer().put(bits);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    public static BloomFilter decode(String encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+        long[] bits = new long[buffer.remaining() / Long.BYTES];
+        buffer.asLongBuffer().get(bits);
+        return new BloomFilter(bits);
+    }
+
+    private static long hash(Object value) {
+        long hash;
+        if (value instanceof Number number) {
+            double normalized = number.doubleValue() == 0 ? 0 : number.doubleValue();
+            hash = Double.doubleToLongBits(normalized);
+        } else if (value instanceof Boolean bool) {
+            hash = bool ? 1 : 2;
+        } else {
+            hash = value.toString().hashCode();
+        }
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= FIRST_MIX;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= SECOND_MIX;
+        hash ^= hash >>> MIX_SHIFT;
+        return hash;
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.mizinchik.persistence.filtering;
+
+import java.util.function.UnaryOperator;
+import org.json.JSONObject;
+
+public class FieldStatistics {
+    private static final String COUNT = "count";
+    private static final String NULLS = "nulls";
+    private static final String MIN = "min";
+    private static final String MAX = "max";
+    private static final String BLOOM = "bloom";
+    private long count;
+    private long nullCount;
+    private Object min;
+    private Object max;
+    private boolean ordered;
+    private BloomFilter bloomFilter;
+
+    public FieldStatistics() {
+        ordered = true;
+    }
+
+    public FieldStatistics(int expected) {
+        this();
+        bloomFilter = BloomFilter.withExpected(expected);
+    }
+
+    public void accept(Object value) {
+        count++;
+        if (value == null) {
+            nullCount++;
+        } else {
+            addToBloomFilter(value);
+            if (ordered) {
+                extendRange(value);
+            }
+        }
+    }
+
+    private void addToBloomFilter(Object value) {
+        if (bloomFilter != null) {
+            if (BloomFilter.isSupported(value)) {
+                bloomFilter.add(value);
+            } else {
+                bloomFilter = null;
+            }
+        }
+    }
+
+    private void extendRange(Object value) {
+        boolean comparable = value instanceof Comparable<?>;
+        try {
+            if (comparable && (min == null || RangePredicate.compare(value, min) < 0)) {
+                min = value;
+            }
+            if (comparable && (max == null || RangePredicate.compare(value, max) > 0)) {
+                max = value;
+            }
+        } catch (ClassCastException e) {
+            comparable = false;
+        }
+        if (!comparable) {
+            ordered = false;
+            min = null;
+            max = null;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public Object getMin() {
+        return min;
+    }
+
+    public Object getMax() {
+        return max;
+    }
+
+    public boolean mightContain(Object value) {
+        return bloomFilter == null || bloomFilter.mightContain(value);
+    }
+
+    public boolean isOrdered() {
+        return ordered && min != null;
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put(COUNT, count);
+        json.put(NULLS, nullCount);
+        if (isOrdered()) {
+            json.put(MIN, min);
+            json.put(MAX, max);
+        }
+        if (bloomFilter != null) {
+            json.put(BLOOM, bloomFilter.encode());
+        }
+        return json;
+    }
+
+    public static FieldStatistics fromJson(JSONObject json, UnaryOperator<Object> decoder) {
+        FieldStatistics statistics = new FieldStatistics();
+        statistics.count = json.getLong(COUNT);
+        statistics.nullCount = json.getLong(NULLS);
+        if (json.has(MIN) && json.has(MAX)) {
+            statistics.min = decoder.apply(json.get(MIN));
+            statistics.max = decoder.apply(json.get(MAX));
+        }
+        statistics.ordered = statistics.min != null && statistics.max != null;
+        if (json.has(BLOOM)) {
+            statistics.bloomFilter = BloomFilter.decode(json.getString(BLOOM));
+        }
+        return statistics;
+    }
+}
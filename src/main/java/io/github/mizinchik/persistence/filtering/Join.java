@@ -0,0 +1,82 @@
+package io.github.mizinchik.persistence.filtering;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public final class Join<L, R> {
+    private final Class<L> leftClass;
+    private final String leftKey;
+    private final Class<R> rightClass;
+    private final String rightKey;
+    private final Set<String> leftFields;
+    private final Set<String> rightFields;
+    private AttributeFilter leftFilter;
+    private AttributeFilter rightFilter;
+
+    private Join(Class<L> leftClass, String leftKey, Class<R> rightClass, String rightKey) {
+        this.leftClass = leftClass;
+        this.leftKey = leftKey;
+        this.rightClass = rightClass;
+        this.rightKey = rightKey;
+        leftFields = new LinkedHashSet<>();
+        rightFields = new LinkedHashSet<>();
+    }
+
+    public static <L, R> Join<L, R> of(Class<L> leftClass, String leftKey, Class<R> rightClass, String rightKey) {
+        return new Join<>(leftClass, leftKey, rightClass, rightKey);
+    }
+
+    public Join<L, R> whereLeft(AttributeFilter filter) {
+        leftFilter = filter;
+        return this;
+    }
+
+    public Join<L, R> whereRight(AttributeFilter filter) {
+        rightFilter = filter;
+        return this;
+    }
+
+    public Join<L, R> selectLeft(String... fields) {
+        leftFields.addAll(List.of(fields));
+        return this;
+    }
+
+    public Join<L, R> selectRight(String... fields) {
+        rightFields.addAll(List.of(fields));
+        return this;
+    }
+
+    public Class<L> getLeftClass() {
+        return leftClass;
+    }
+
+    public String getLeftKey() {
+        return leftKey;
+    }
+
+    public Class<R> getRightClass() {
+        return rightClass;
+    }
+
+    public String getRightKey() {
+        return rightKey;
+    }
+
+    public AttributeFilter getLeftFilter() {
+        return leftFilter;
+    }
+
+    public AttributeFilter getRightFilter() {
+        return rightFilter;
+    }
+
+    public Set<String> getLeftFields() {
+        return Collections.unmodifiableSet(leftFields);
+    }
+
+    public Set<String> getRightFields() {
+        return Collections.unmodifiableSet(rightFields);
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.mizinchik.persistence.filtering;
+
+import java.util.Comparator;
+
+public final class Ordering {
+    private static final int UNLIMITED = -1;
+    private final String field;
+    private final Direction direction;
+    private final int limit;
+
+    private Ordering(String field, Direction direction, int limit) {
+        this.field = field;
+        this.direction = direction;
+        this.limit = limit;
+    }
+
+    public static Ordering ascending(String field) {
+        return new Ordering(field, Direction.ASCENDING, UNLIMITED);
+    }
+
+    public static Ordering descending(String field) {
+        return new Ordering(field, Direction.DESCENDING, UNLIMITED);
+    }
+
+    public Ordering limit(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        return new Ordering(field, direction, count);
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public boolean isLimited() {
+        return limit != UNLIMITED;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Comparator<Object> keyComparator() {
+        Comparator<Object> natural = RangePredicate::compare;
+        return Comparator.nullsLast(direction == Direction.ASCENDING ? natural : natural.reversed());
+    }
+
+    public enum Direction {
+        ASCENDING,
+        DESCENDING
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.mizinchik.persistence.filtering;
+
+import java.util.function.Predicate;
+
+public final class PrefixPredicate implements Predicate<Object> {
+    private final String prefix;
+
+    private PrefixPredicate(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public static PrefixPredicate startsWith(String prefix) {
+        return new PrefixPredicate(prefix);
+    }
+
+    @Override
+    public boolean test(Object value) {
+        return (value instanceof String || value instanceof Character) && value.toString().startsWith(prefix);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+}
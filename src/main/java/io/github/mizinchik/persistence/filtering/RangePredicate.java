@@ -0,0 +1,119 @@
+package io.github.mizinchik.persistence.filtering;
+
+import java.util.function.Predicate;
+
+public final class RangePredicate implements Predicate<Object> {
+    private final Object lower;
+    private final boolean lowerInclusive;
+    private final Object upper;
+    private final boolean upperInclusive;
+    private final boolean negated;
+
+    private RangePredicate(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive,
+                           boolean negated) {
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+        this.negated = negated;
+    }
+
+    public static RangePredicate equalTo(Object value) {
+        return new RangePredicate(value, true, value, true, false);
+    }
+
+    public static RangePredicate greaterThan(Object value) {
+        return new RangePredicate(value, false, null, false, false);
+    }
+
+    public static RangePredicate atLeast(Object value) {
+        return new RangePredicate(value, true, null, false, false);
+    }
+
+    public static RangePredicate lessThan(Object value) {
+        return new RangePredicate(null, false, value, false, false);
+    }
+
+    public static RangePredicate atMost(Object value) {
+        return new RangePredicate(null, false, value, true, false);
+    }
+
+    public static RangePredicate between(Object from, Object to) {
+        return new RangePredicate(from, true, to, true, false);
+    }
+
+    @Override
+    public boolean test(Object value) {
+        return value != null && contains(value) != negated;
+    }
+
+    @Override
+    public RangePredicate negate() {
+        return new RangePredicate(lower, lowerInclusive, upper, upperInclusive, !negated);
+    }
+
+    public boolean isNegated() {
+        return negated;
+    }
+
+    public boolean isEquality() {
+        return lower != null && lowerInclusive && upperInclusive && compare(lower, upper) == 0;
+    }
+
+    public Object getLower() {
+        return lower;
+    }
+
+    public Object getUpper() {
+        return upper;
+    }
+
+    public boolean mayMatch(FieldStatistics statistics) {
+        boolean possible = statistics.getNullCount() != statistics.getCount()
+                && (negated || !isEquality() || statistics.mightContain(lower));
+        return possible && (!statistics.isOrdered() || overlaps(statistics.getMin(), statistics.getMax()));
+    }
+
+    private boolean overlaps(Object min, Object max) {
+        if (negated) {
+            return !contains(min) || !contains(max);
+        }
+        return !isBelow(max) && !isAbove(min);
+    }
+
+    private boolean contains(Object value) {
+        return !isBelow(value) && !isAbove(value);
+    }
+
+    private boolean isBelow(Object value) {
+        if (lower == null) {
+            return false;
+        }
+        int comparison = compare(value, lower);
+        return comparison < 0 || comparison == 0 && !lowerInclusive;
+    }
+
+    private boolean isAbove(Object value) {
+        if (upper == null) {
+            return false;
+        }
+        int comparison = compare(value, upper);
+        return comparison > 0 || comparison == 0 && !upperInclusive;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static int compare(Object first, Object second) {
+        if (first instanceof Number left && second instanceof Number right) {
+            if (isIntegral(left) && isIntegral(right)) {
+                return Long.compare(left.longValue(), right.longValue());
+            }
+            return Double.compare(left.doubleValue(), right.doubleValue());
+        }
+        return ((Comparable<Object>) first).compareTo(second);
+    }
+
+    static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long
+                || number instanceof Short || number instanceof Byte;
+    }
+}
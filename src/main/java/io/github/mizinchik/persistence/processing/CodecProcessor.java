@@ -0,0 +1,318 @@
+package io.github.mizinchik.persistence.processing;
+
+import io.github.mizinchik.persistence.annotations.GenerateCodec;
+import io.github.mizinchik.persistence.annotations.Transient;
+import io.github.mizinchik.persistence.codec.Codecs;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+@SupportedAnnotationTypes("io.github.mizinchik.persistence.annotations.GenerateCodec")
+@SuppressWarnings("MultipleStringLiterals")
+public class CodecProcessor extends AbstractProcessor {
+    private static final String INDENT = "        ";
+    private static final String HANDLE = "FIELD_";
+    private static final String JSON_IS_NULL = "json.isNull(\"";
+    private static final String NULL_OR = "\") ? null : ";
+    private static final String JSON_STRINGS = "io.github.mizinchik.persistence.serialization.JsonStrings.quote(";
+    private static final String JSON_NUMBERS = "io.github.mizinchik.persistence.serialization.JsonNumbers.append(";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateCodec.class)) {
+            if (element instanceof TypeElement type && isSupported(type)) {
+                try {
+                    generate(type);
+                } catch (IOException e) {
+                    error(type, "Failed to write the codec: " + e.getMessage());
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isSupported(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.RECORD
+                || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, "@GenerateCodec is only applicable to concrete classes and records");
+            return false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@GenerateCodec is not applicable to parametrized classes");
+            return false;
+        }
+        for (Element current = type; current instanceof TypeElement enclosing;
+             current = current.getEnclosingElement()) {
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)
+                    || enclosing.getNestingKind() == NestingKind.MEMBER
+                    && !enclosing.getModifiers().contains(Modifier.STATIC)) {
+                error(type, "@GenerateCodec requires a non-private top-level or static nested class");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        String qualifiedName = Codecs.generatedName(
+                processingEnv.getElementUtils().getBinaryName(type).toString());
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+        String entity = type.getQualifiedName().toString();
+        List<VariableElement> fields = ElementFilter.fieldsIn(type.getEnclosedElements()).stream()
+                .filter(field -> !field.getModifiers().contains(Modifier.STATIC))
+                .filter(field -> !field.getModifiers().contains(Modifier.TRANSIENT)
+                        && field.getAnnotation(Transient.class) == null)
+                .toList();
+        ExecutableElement constructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .filter(candidate -> candidate.getParameters().isEmpty())
+                .findFirst()
+                .orElse(null);
+        boolean privateConstructor = constructor != null && constructor.getModifiers().contains(Modifier.PRIVATE);
+        boolean needsLookup = privateConstructor
+                || fields.stream().anyMatch(field -> field.getModifiers().contains(Modifier.PRIVATE));
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(simpleName)
+                .append(" implements io.github.mizinchik.persistence.codec.Codec<").append(entity).append("> {\n");
+        if (needsLookup) {
+            appendHandles(source, fields, privateConstructor);
+        }
+        source.append("    public ").append(simpleName).append("() {\n    }\n\n");
+        appendSerialize(source, entity, fields);
+        appendDeserialize(source, entity, fields, constructor, privateConstructor);
+        if (needsLookup) {
+            appendLookupHelpers(source, entity, privateConstructor);
+        }
+        source.append("}\n");
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private void appendHandles(StringBuilder source, List<VariableElement> fields, boolean privateConstructor) {
+        source.append("    private static final java.lang.invoke.MethodHandles.Lookup LOOKUP = lookup();\n");
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                source.append("    private static final java.lang.invoke.VarHandle ").append(HANDLE).append(i)
+                        .append(" = handle(\"").append(field.getSimpleName()).append("\", ")
+                        .append(erasure(field.asType())).append(".class);\n");
+            }
+        }
+        if (privateConstructor) {
+            source.append("    private static final java.lang.invoke.MethodHandle CONSTRUCTOR = constructor();\n");
+        }
+        source.append('\n');
+    }
+
+    private void appendSerialize(StringBuilder source, String entity, List<VariableElement> fields) {
+        source.append("    @Override\n    public void serialize(").append(entity).append(" object,\n")
+                .append(INDENT).append("    io.github.mizinchik.persistence.serialization.JsonSerializer serializer,\n")
+                .append(INDENT).append("    StringBuilder builder) {\n")
+                .append(INDENT).append("boolean next = false;\n")
+                .append(INDENT).append("builder.append('{');\n");
+        boolean definite = false;
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            String name = field.getSimpleName().toString();
+            TypeMirror fieldType = field.asType();
+            String value = read(field, i);
+            if (fieldType.getKind().isPrimitive()) {
+                source.append(INDENT);
+                if (!definite) {
+                    source.append("if (next) {\n").append(INDENT).append("    builder.append(',');\n")
+                            .append(INDENT).append("}\n").append(INDENT);
+                }
+                source.append("builder.append(\"").append(definite ? "," : "").append('\\').append('"')
+                        .append(name).append("\\\":\")");
+                if (fieldType.getKind() == TypeKind.CHAR) {
+                    source.append(";\n").append(INDENT).append(JSON_STRINGS).append(value).append(", builder);\n");
+                } else if (fieldType.getKind() == TypeKind.DOUBLE || fieldType.getKind() == TypeKind.FLOAT) {
+                    source.append(";\n").append(INDENT).append(JSON_NUMBERS).append(value).append(", builder);\n");
+                } else {
+                    source.append(".append(").append(value).append(");\n");
+                }
+                definite = true;
+            } else {
+                String local = "value" + i;
+                source.append(INDENT).append(erasure(fieldType)).append(' ').append(local).append(" = ")
+                        .append(value).append(";\n")
+                        .append(INDENT).append("if (").append(local).append(" != null) {\n")
+                        .append(INDENT).append("    ");
+                if (definite) {
+                    source.append("builder.append(',');\n");
+                } else {
+                    source.append("if (next) {\n").append(INDENT).append("        builder.append(',');\n")
+                            .append(INDENT).append("    }\n");
+                }
+                source.append(INDENT).append("    builder.append(\"\\\"").append(name).append("\\\":\");\n")
+                        .append(INDENT).append("    ").append(write(fieldType, local)).append(";\n")
+                        .append(INDENT).append("    next = true;\n")
+                        .append(INDENT).append("}\n");
+            }
+        }
+        source.append(INDENT).append("builder.append('}');\n    }\n\n");
+    }
+
+    private void appendDeserialize(StringBuilder source, String entity, List<VariableElement> fields,
+                                   ExecutableElement constructor, boolean privateConstructor) {
+        source.append("    @Override\n    public ").append(entity).append(" deserialize(org.json.JSONObject json,\n")
+                .append(INDENT).append("    io.github.mizinchik.persistence.deserialization.JsonDeserializer<")
+                .append(entity).append("> deserializer) {\n");
+        if (constructor == null) {
+            source.append(INDENT)
+                    .append("throw new io.github.mizinchik.persistence.exceptions")
+                    .append(".NoArgumentConstructorMissingException(")
+                    .append("\n").append(INDENT).append("        new NoSuchMethodException(").append(entity)
+                    .append(".class.getName() + \".<init>()\"));\n    }\n\n");
+            return;
+        }
+        source.append(INDENT).append(entity).append(" object = ");
+        if (privateConstructor) {
+            source.append("instantiate();\n");
+        } else {
+            source.append("new ").append(entity).append("();\n");
+        }
+        source.append(INDENT).append("deserializer.register(json, object);\n");
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            if (field.getModifiers().contains(Modifier.FINAL)) {
+                continue;
+            }
+            String value = decode(field);
+            source.append(INDENT);
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                source.append(HANDLE).append(i).append(".set(object, ").append(value).append(");\n");
+            } else {
+                source.append("object.").append(field.getSimpleName()).append(" = ").append(value).append(";\n");
+            }
+        }
+        source.append(INDENT).append("return object;\n    }\n");
+        if (privateConstructor) {
+            source.append("\n    private static ").append(entity).append(" instantiate() {\n")
+                    .append(INDENT).append("try {\n")
+                    .append(INDENT).append("    return (").append(entity).append(") CONSTRUCTOR.invoke();\n")
+                    .append(INDENT).append("} catch (Throwable e) {\n")
+                    .append(INDENT).append("    throw new io.github.mizinchik.persistence.exceptions")
+                    .append(".EmptyObjectInstantiationFailedException(e);\n")
+                    .append(INDENT).append("}\n    }\n");
+        }
+    }
+
+    private void appendLookupHelpers(StringBuilder source, String entity, boolean privateConstructor) {
+        source.append("\n    private static java.lang.invoke.MethodHandles.Lookup lookup() {\n")
+                .append(INDENT).append("try {\n")
+                .append(INDENT).append("    return java.lang.invoke.MethodHandles.privateLookupIn(")
+                .append(entity).append(".class,\n")
+                .append(INDENT).append("            java.lang.invoke.MethodHandles.lookup());\n")
+                .append(INDENT).append("} catch (IllegalAccessException e) {\n")
+                .append(INDENT).append("    throw new io.github.mizinchik.persistence.exceptions")
+                .append(".FailedFieldAccessException(e);\n")
+                .append(INDENT).append("}\n    }\n\n")
+                .append("    private static java.lang.invoke.VarHandle handle(String name, Class<?> type) {\n")
+                .append(INDENT).append("try {\n")
+                .append(INDENT).append("    return LOOKUP.findVarHandle(").append(entity)
+                .append(".class, name, type);\n")
+                .append(INDENT).append("} catch (ReflectiveOperationException e) {\n")
+                .append(INDENT).append("    throw new io.github.mizinchik.persistence.exceptions")
+                .append(".FailedFieldAccessException(e);\n")
+                .append(INDENT).append("}\n    }\n");
+        if (!privateConstructor) {
+            return;
+        }
+        source.append("\n    private static java.lang.invoke.MethodHandle constructor() {\n")
+                .append(INDENT).append("try {\n")
+                .append(INDENT).append("    return LOOKUP.findConstructor(").append(entity)
+                .append(".class, java.lang.invoke.MethodType.methodType(void.class));\n")
+                .append(INDENT).append("} catch (ReflectiveOperationException e) {\n")
+                .append(INDENT).append("    throw new io.github.mizinchik.persistence.exceptions")
+                .append(".EmptyObjectInstantiationFailedException(e);\n")
+                .append(INDENT).append("}\n    }\n");
+    }
+
+    private String read(VariableElement field, int index) {
+        if (field.getModifiers().contains(Modifier.PRIVATE)) {
+            return "(" + erasure(field.asType()) + ") " + HANDLE + index + ".get(object)";
+        }
+        return "object." + field.getSimpleName();
+    }
+
+    private String write(TypeMirror type, String value) {
+        return switch (erasure(type)) {
+            case "java.lang.String", "java.lang.Character" -> JSON_STRINGS + value + ", builder)";
+            case "java.lang.Integer", "java.lang.Long", "java.lang.Short", "java.lang.Byte",
+                 "java.lang.Double", "java.lang.Float" -> JSON_NUMBERS + value + ", builder)";
+            case "java.lang.Boolean" -> "builder.append(" + value + ")";
+            default -> "serializer.serialize(" + value + ", builder)";
+        };
+    }
+
+    @SuppressWarnings("CyclomaticComplexity")
+    private String decode(VariableElement field) {
+        String name = "\"" + field.getSimpleName() + "\"";
+        TypeMirror type = field.asType();
+        String nullable = JSON_IS_NULL + field.getSimpleName() + NULL_OR;
+        return switch (type.getKind()) {
+            case INT -> "json.getInt(" + name + ")";
+            case LONG -> "json.getLong(" + name + ")";
+            case DOUBLE -> "json.getDouble(" + name + ")";
+            case FLOAT -> "json.getFloat(" + name + ")";
+            case BOOLEAN -> "json.getBoolean(" + name + ")";
+            case SHORT -> "(short) json.getInt(" + name + ")";
+            case BYTE -> "(byte) json.getInt(" + name + ")";
+            case CHAR -> "io.github.mizinchik.persistence.codec.Codecs.toChar(json.getString(" + name + "))";
+            default -> switch (erasure(type)) {
+                case "java.lang.Integer" -> nullable + "Integer.valueOf(json.getInt(" + name + "))";
+                case "java.lang.Long" -> nullable + "Long.valueOf(json.getLong(" + name + "))";
+                case "java.lang.Double" -> nullable + "Double.valueOf(json.getDouble(" + name + "))";
+                case "java.lang.Float" -> nullable + "Float.valueOf(json.getFloat(" + name + "))";
+                case "java.lang.Boolean" -> nullable + "Boolean.valueOf(json.getBoolean(" + name + "))";
+                case "java.lang.Short" -> nullable + "Short.valueOf((short) json.getInt(" + name + "))";
+                case "java.lang.Byte" -> nullable + "Byte.valueOf((byte) json.getInt(" + name + "))";
+                case "java.lang.Character" -> nullable + "Character.valueOf("
+                        + "io.github.mizinchik.persistence.codec.Codecs.toChar(json.getString(" + name + ")))";
+                case "java.lang.String" -> nullable + "json.getString(" + name + ")";
+                default -> nullable + "(" + erasure(type) + ") deserializer.decodeField(" + name + ")";
+            };
+        };
+    }
+
+    private String erasure(TypeMirror type) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        if (erased.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) processingEnv.getTypeUtils().asElement(erased)).getQualifiedName().toString();
+        }
+        return erased.toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.mizinchik.persistence.serialization;
+
+public final class JsonNumbers {
+    private JsonNumbers() {
+    }
+
+    public static StringBuilder append(Number number, StringBuilder builder) {
+        return switch (number) {
+            case Integer value -> builder.append(value.intValue());
+            case Long value -> builder.append(value.longValue());
+            case Double value -> append(value.doubleValue(), builder);
+            case Float value -> append(value.floatValue(), builder);
+            case Short value -> builder.append(value.intValue());
+            case Byte value -> builder.append(value.intValue());
+            default -> builder.append(number);
+        };
+    }
+
+    public static StringBuilder append(double value, StringBuilder builder) {
+        if (!Double.isFinite(value)) {
+            return builder.append('"').append(value).append('"');
+        }
+        return builder.append(value);
+    }
+
+    public static StringBuilder append(float value, StringBuilder builder) {
+        if (!Float.isFinite(value)) {
+            return builder.append('"').append(value).append('"');
+        }
+        return builder.append(value);
+    }
+}
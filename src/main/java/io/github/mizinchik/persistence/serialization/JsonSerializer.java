@@ -1,94 +1,257 @@
 package io.github.mizinchik.persistence.serialization;
 
-import io.github.mizinchik.persistence.annotations.Transient;
-import java.io.BufferedWriter;
+import io.github.mizinchik.persistence.codec.Codecs;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import org.json.JSONObject;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 
 public class JsonSerializer implements Serializer {
+    public static final String ID = "@id";
+    public static final String REF = "@ref";
+    public static final String VERSION = "@version";
+    private static final String ID_KEY = '"' + ID + '"' + ':';
+    private static final String REF_KEY = '"' + REF + '"' + ':';
+    private static final JsonSerializer KEYS = new JsonSerializer();
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private static final int MIN_CHUNK = 1024;
+    private static final int CHUNKS_PER_WORKER = 4;
+    private final boolean references;
+    private final Graph graph;
+    private final ForkJoinPool pool;
+
+    public JsonSerializer() {
+        this(false, null, null);
+    }
+
+    private JsonSerializer(boolean references, Graph graph, ForkJoinPool pool) {
+        this.references = references;
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    public static JsonSerializer withReferences() {
+        return new JsonSerializer(true, null, null);
+    }
+
+    public JsonSerializer parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    public JsonSerializer parallel(ForkJoinPool pool) {
+        return new JsonSerializer(references, graph, pool);
+    }
+
     @Override
     public String serialize(Object object) {
-        return switch (object) {
-            case null -> "null";
-            case Number ignored -> object.toString();
-            case Character character -> "\"" + character + "\"";
-            case String string -> "\"" + string + "\"";
-            default -> serializeComplex(object);
-        };
+        StringBuilder builder = new StringBuilder();
+        serialize(object, builder);
+        return builder.toString();
     }
 
-    private String serializeComplex(Object object) {
-        StringBuilder builder = new StringBuilder();
-        if (object.getClass().isArray()) {
-            builder.append("[");
-            int length = Array.getLength(object);
-            for (int i = 0; i < length; i++) {
-                builder.append(serialize(Array.get(object, i))).append(",");
-            }
-            if (length > 0) {
-                builder.deleteCharAt(builder.length() - 1);
-            }
-            return builder.append("]").toString();
+    public void serialize(Object object, StringBuilder builder) {
+        if (references && graph == null) {
+            JsonSerializer tracking = new JsonSerializer(true, new Graph(builder.length()), null);
+            tracking.serialize(object, builder);
+            tracking.graph.identify(builder);
+        } else {
+            serializeValue(object, builder);
         }
+    }
+
+    private void serializeValue(Object object, StringBuilder builder) {
+        switch (object) {
+            case null -> builder.append("null");
+            case Number number -> JsonNumbers.append(number, builder);
+            case Boolean bool -> builder.append(bool);
+            case Character character -> JsonStrings.quote(character, builder);
+            case String string -> JsonStrings.quote(string, builder);
+            default -> serializeComplex(object, builder);
+        }
+    }
+
+    private void serializeComplex(Object object, StringBuilder builder) {
+        List<?> elements = parallelElements(object);
+        if (elements != null) {
+            serializeParallel(elements, object instanceof Map<?, ?>, builder);
+        } else if (object.getClass().isArray()) {
+            serializeArray(object, builder);
+        } else {
+            serializeContainer(object, builder);
+        }
+    }
+
+    private void serializeContainer(Object object, StringBuilder builder) {
         switch (object) {
             case Collection<?> iterable -> {
                 builder.append("[");
                 if (!iterable.isEmpty()) {
                     for (Object inner : iterable) {
-                        builder.append(serialize(inner)).append(",");
+                        serialize(inner, builder);
+                        builder.append(",");
                     }
                     builder.deleteCharAt(builder.length() - 1);
                 }
                 builder.append("]");
-                return builder.toString();
             }
             case Map<?, ?> map -> {
                 builder.append("{");
                 if (!map.isEmpty()) {
                     for (var entry : map.entrySet()) {
-                        builder.append(JSONObject.quote(serialize(entry.getKey())))
-                                .append(":").append(serialize(entry.getValue())).append(",");
+                        serializeEntry(entry, builder);
+                        builder.append(",");
                     }
                     builder.deleteCharAt(builder.length() - 1);
                 }
-                return builder.append("}").toString();
+                builder.append("}");
             }
-            default -> {
-                builder.append("{");
-                serializeFields(object, builder);
-                return builder.append("}").toString();
+            default -> serializeObject(object, builder);
+        }
+    }
+
+    private void serializeParallel(List<?> elements, boolean map, StringBuilder builder) {
+        builder.append(map ? '{' : '[');
+        List<StringBuilder> parts = encodeChunks(elements, map, Function.identity());
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) {
+                builder.append(',');
             }
+            builder.append(parts.get(i));
+        }
+        builder.append(map ? '}' : ']');
+    }
+
+    private void serializeEntry(Map.Entry<?, ?> entry, StringBuilder builder) {
+        switch (entry.getKey()) {
+            case String string -> JsonStrings.quote(string, builder);
+            case Character character -> JsonStrings.quote(character, builder);
+            case null, default -> JsonStrings.quote(KEYS.serialize(entry.getKey()), builder);
+        }
+        builder.append(":");
+        serialize(entry.getValue(), builder);
+    }
+
+    private List<?> parallelElements(Object object) {
+        if (pool == null || references) {
+            return null;
+        }
+        List<?> elements = switch (object) {
+            case Object[] objects -> Arrays.asList(objects);
+            case List<?> list when list instanceof RandomAccess -> list;
+            case Collection<?> collection -> collection.size() < PARALLEL_THRESHOLD
+                    ? null
+                    : new ArrayList<>(collection);
+            case Map<?, ?> map -> map.size() < PARALLEL_THRESHOLD ? null : new ArrayList<>(map.entrySet());
+            default -> null;
+        };
+        return elements == null || elements.size() < PARALLEL_THRESHOLD ? null : elements;
+    }
+
+    private <R> List<R> encodeChunks(List<?> elements, boolean entries, Function<StringBuilder, R> finish) {
+        int size = elements.size();
+        int chunk = Math.max(MIN_CHUNK, size / (pool.getParallelism() * CHUNKS_PER_WORKER));
+        List<ForkJoinTask<R>> tasks = new ArrayList<>();
+        for (int from = 0; from < size; from += chunk) {
+            List<?> slice = elements.subList(from, Math.min(size, from + chunk));
+            tasks.add(pool.submit(() -> {
+                StringBuilder part = new StringBuilder();
+                for (Object element : slice) {
+                    if (!part.isEmpty()) {
+                        part.append(',');
+                    }
+                    if (entries) {
+                        serializeEntry((Map.Entry<?, ?>) element, part);
+                    } else {
+                        serialize(element, part);
+                    }
+                }
+                return finish.apply(part);
+            }));
+        }
+        List<R> parts = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<R> task : tasks) {
+            parts.add(task.join());
         }
+        return parts;
     }
 
-    private void serializeFields(Object object, StringBuilder builder) {
-        try {
-            Field[] fields = object.getClass().getDeclaredFields();
-            for (Field field : fields) {
-                if (Modifier.isTransient(field.getModifiers())
-                        || field.getAnnotation(Transient.class) != null) {
-                    continue;
+    @SuppressWarnings("CyclomaticComplexity")
+    private void serializeArray(Object array, StringBuilder builder) {
+        builder.append("[");
+        switch (array) {
+            case int[] ints -> {
+                for (int element : ints) {
+                    builder.append(element).append(",");
                 }
-                field.setAccessible(true);
-                Object fieldValue = field.get(object);
-                if (fieldValue != null) {
-                    builder.append("\"").append(field.getName()).append("\":");
-                    builder.append(serialize(fieldValue)).append(",");
+            }
+            case long[] longs -> {
+                for (long element : longs) {
+                    builder.append(element).append(",");
+                }
+            }
+            case double[] doubles -> {
+                for (double element : doubles) {
+                    JsonNumbers.append(element, builder).append(",");
+                }
+            }
+            case float[] floats -> {
+                for (float element : floats) {
+                    JsonNumbers.append(element, builder).append(",");
+                }
+            }
+            case short[] shorts -> {
+                for (short element : shorts) {
+                    builder.append(element).append(",");
+                }
+            }
+            case byte[] bytes -> {
+                for (byte element : bytes) {
+                    builder.append(element).append(",");
+                }
+            }
+            case char[] chars -> {
+                for (char element : chars) {
+                    JsonStrings.quote(element, builder).append(",");
                 }
             }
-            if (fields.length > 0) {
-                builder.deleteCharAt(builder.length() - 1);
+            case boolean[] booleans -> {
+                for (boolean element : booleans) {
+                    builder.append(element).append(",");
+                }
+            }
+            case Object[] objects -> {
+                for (Object element : objects) {
+                    serialize(element, builder);
+                    builder.append(",");
+                }
             }
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
+            default -> throw new IllegalArgumentException("Not an array");
         }
+        if (builder.charAt(builder.length() - 1) == ',') {
+            builder.deleteCharAt(builder.length() - 1);
+        }
+        builder.append("]");
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void serializeObject(T object, StringBuilder builder) {
+        if (graph != null && graph.repeated(object, builder)) {
+            return;
+        }
+        Codecs.of((Class<T>) object.getClass()).serialize(object, this, builder);
     }
 
     @Override
@@ -99,10 +262,93 @@ public class JsonSerializer implements Serializer {
         if (!file.setWritable(true)) {
             throw new IllegalStateException("Couldn't make the file accessible to writing");
         }
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, false))) {
-            writer.append(serialize(object));
+        ByteBuffer[] buffers = encode(object);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long remaining = 0;
+            for (ByteBuffer buffer : buffers) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
         } catch (IOException e) {
             throw new RuntimeException("Writing to file failed", e);
         }
     }
+
+    private ByteBuffer[] encode(Object object) {
+        List<?> elements = parallelElements(object);
+        if (elements == null) {
+            return new ByteBuffer[] {utf8(serialize(object))};
+        }
+        boolean map = object instanceof Map<?, ?>;
+        List<ByteBuffer> parts = encodeChunks(elements, map, part -> utf8(part.toString()));
+        ByteBuffer[] buffers = new ByteBuffer[parts.size() * 2 + 1];
+        String close = map ? "}" : "]";
+        buffers[0] = utf8(map ? "{" : "[");
+        for (int i = 0; i < parts.size(); i++) {
+            buffers[i * 2 + 1] = parts.get(i);
+            buffers[i * 2 + 2] = utf8(i == parts.size() - 1 ? close : ",");
+        }
+        return buffers;
+    }
+
+    private static ByteBuffer utf8(String string) {
+        return ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Graph {
+        private final int start;
+        private final Map<Object, Visit> visits;
+        private final List<Visit> shared;
+
+        private Graph(int start) {
+            this.start = start;
+            visits = new IdentityHashMap<>();
+            shared = new ArrayList<>();
+        }
+
+        private boolean repeated(Object object, StringBuilder builder) {
+            Visit visit = visits.get(object);
+            if (visit == null) {
+                visits.put(object, new Visit(builder.length()));
+                return false;
+            }
+            if (visit.id == 0) {
+                visit.id = shared.size() + 1;
+                shared.add(visit);
+            }
+            builder.append('{').append(REF_KEY).append(visit.id).append('}');
+            return true;
+        }
+
+        private void identify(StringBuilder builder) {
+            if (shared.isEmpty()) {
+                return;
+            }
+            shared.sort(Comparator.comparingInt(visit -> visit.position));
+            String written = builder.substring(start);
+            builder.setLength(start);
+            int copied = 0;
+            for (Visit visit : shared) {
+                int open = visit.position - start + 1;
+                builder.append(written, copied, open).append(ID_KEY).append(visit.id);
+                if (written.charAt(open) != '}') {
+                    builder.append(',');
+                }
+                copied = open;
+            }
+            builder.append(written, copied, written.length());
+        }
+    }
+
+    private static final class Visit {
+        private final int position;
+        private int id;
+
+        private Visit(int position) {
+            this.position = position;
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package io.github.mizinchik.persistence.serialization;
+
+public final class JsonStrings {
+    private static final int ASCII = 128;
+    private static final int CONTROL = 0x20;
+    private static final String[] ESCAPES = new String[ASCII];
+
+    static {
+        for (int c = 0; c < CONTROL; c++) {
+            ESCAPES[c] = String.format("\\u%04x", c);
+        }
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\f'] = "\\f";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\t'] = "\\t";
+    }
+
+    private JsonStrings() {
+    }
+
+    public static StringBuilder quote(String value, StringBuilder builder) {
+        int length = value.length();
+        int i = 0;
+        while (i < length && !isEscaped(value.charAt(i))) {
+            i++;
+        }
+        builder.append('"');
+        if (i == length) {
+            return builder.append(value).append('"');
+        }
+        int run = 0;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (isEscaped(c)) {
+                builder.append(value, run, i).append(ESCAPES[c]);
+                run = i + 1;
+            }
+        }
+        return builder.append(value, run, length).append('"');
+    }
+
+    public static StringBuilder quote(char value, StringBuilder builder) {
+        builder.append('"');
+        return (isEscaped(value) ? builder.append(ESCAPES[value]) : builder.append(value)).append('"');
+    }
+
+    private static boolean isEscaped(char c) {
+        return c < ASCII && ESCAPES[c] != null;
+    }
+}
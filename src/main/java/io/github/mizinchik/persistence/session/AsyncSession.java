@@ -0,0 +1,23 @@
+package io.github.mizinchik.persistence.session;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncSession extends AutoCloseable {
+    void setDirectory(Path directory);
+
+    <T> CompletableFuture<Void> insertAsync(T object);
+
+    <T> CompletableFuture<List<T>> findAsync(Class<T> clazz);
+
+    <T> CompletableFuture<List<T>> findAsync(Class<T> clazz, AttributeFilter filter);
+
+    <T> CompletableFuture<Void> deleteAsync(Class<T> clazz, AttributeFilter filter);
+
+    CompletableFuture<Void> persistAsync();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,7 @@
+package io.github.mizinchik.persistence.session;
+
+import java.time.Duration;
+
+public record BufferMetrics(long records, long bytes, long offHeapBytes, long spilledRecords, Duration oldest,
+                            long flushes, long failedFlushes) {
+}
@@ -0,0 +1,61 @@
+package io.github.mizinchik.persistence.session;
+
+import java.time.Duration;
+
+public final class FlushPolicy {
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+    private final long maxRecords;
+    private final long maxBytes;
+    private final Duration maxAge;
+
+    private FlushPolicy(long maxRecords, long maxBytes, Duration maxAge) {
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+    }
+
+    public static FlushPolicy manual() {
+        return new FlushPolicy(UNBOUNDED, UNBOUNDED, null);
+    }
+
+    public FlushPolicy maxRecords(long records) {
+        if (records <= 0) {
+            throw new IllegalArgumentException("Record threshold must be positive");
+        }
+        return new FlushPolicy(records, maxBytes, maxAge);
+    }
+
+    public FlushPolicy maxBytes(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Byte threshold must be positive");
+        }
+        return new FlushPolicy(maxRecords, bytes, maxAge);
+    }
+
+    public FlushPolicy maxAge(Duration age) {
+        if (age.isNegative() || age.isZero()) {
+            throw new IllegalArgumentException("Age threshold must be positive");
+        }
+        return new FlushPolicy(maxRecords, maxBytes, age);
+    }
+
+    public boolean isManual() {
+        return maxRecords == UNBOUNDED && maxBytes == UNBOUNDED && maxAge == null;
+    }
+
+    public boolean isAged() {
+        return maxAge != null;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public boolean isCrossed(long records, long bytes) {
+        return records >= maxRecords || bytes >= maxBytes;
+    }
+
+    public boolean isCrossed(long records, long bytes, Duration age) {
+        return records > 0 && (isCrossed(records, bytes) || maxAge != null && age.compareTo(maxAge) >= 0);
+    }
+}
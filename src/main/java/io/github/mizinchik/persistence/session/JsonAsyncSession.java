@@ -0,0 +1,143 @@
+package io.github.mizinchik.persistence.session;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+public class JsonAsyncSession implements AsyncSession {
+    private static final int MAX_IN_FLIGHT = 256;
+    private final Session session;
+    private final Executor executor;
+    private final Semaphore inFlight;
+    private final boolean ownsExecutor;
+
+    public JsonAsyncSession() {
+        this(new JsonSession(), Executors.newVirtualThreadPerTaskExecutor(), MAX_IN_FLIGHT, true);
+    }
+
+    public JsonAsyncSession(Executor executor, int maxInFlight) {
+        this(new JsonSession(), executor, maxInFlight, false);
+    }
+
+    public JsonAsyncSession(Session session, Executor executor, int maxInFlight) {
+        this(session, executor, maxInFlight, false);
+    }
+
+    private JsonAsyncSession(Session session, Executor executor, int maxInFlight, boolean ownsExecutor) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("At least one operation must be allowed in flight");
+        }
+        this.session = session;
+        this.executor = executor;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    @Override
+    public void setDirectory(Path directory) {
+        session.setDirectory(directory);
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> insertAsync(T object) {
+        return submit(() -> session.insert(object), () -> null);
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> findAsync(Class<T> clazz) {
+        return submit(() -> {
+        }, () -> session.find(clazz));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> findAsync(Class<T> clazz, AttributeFilter filter) {
+        return submit(session::persist, () -> session.findPersisted(clazz, filter));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> deleteAsync(Class<T> clazz, AttributeFilter filter) {
+        return submit(() -> session.delete(clazz, filter), () -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> persistAsync() {
+        return submit(session::persist, () -> null);
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            ((ExecutorService) executor).close();
+        }
+    }
+
+    private <V> CompletableFuture<V> submit(Runnable write, Callable<V> read) {
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many operations in flight"));
+        }
+        Task<V> task = new Task<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run(write, read);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            task.completeExceptionally(e);
+        }
+        return task;
+    }
+
+    private static final class Task<V> extends CompletableFuture<V> {
+        private Thread worker;
+        private boolean reading;
+
+        private void run(Runnable write, Callable<V> read) {
+            if (!isDone()) {
+                try {
+                    write.run();
+                    if (startReading()) {
+                        complete(read.call());
+                    }
+                } catch (Exception e) {
+                    completeExceptionally(e);
+                } finally {
+                    synchronized (this) {
+                        worker = null;
+                    }
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private synchronized boolean startReading() {
+            boolean started = !isDone();
+            if (started) {
+                worker = Thread.currentThread();
+                reading = true;
+            }
+            return started;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            synchronized (this) {
+                if (cancelled && reading && worker != null) {
+                    worker.interrupt();
+                }
+            }
+            return cancelled;
+        }
+    }
+}
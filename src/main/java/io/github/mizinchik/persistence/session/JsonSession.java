@@ -1,134 +1,659 @@
 package io.github.mizinchik.persistence.session;
 
 import io.github.mizinchik.persistence.deserialization.Deserializer;
+import io.github.mizinchik.persistence.deserialization.HashJoin;
 import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.deserialization.JsonLines;
 import io.github.mizinchik.persistence.deserialization.JsonSerialStream;
+import io.github.mizinchik.persistence.deserialization.NumberTokener;
+import io.github.mizinchik.persistence.deserialization.SerialPublisher;
 import io.github.mizinchik.persistence.deserialization.SerialStream;
+import io.github.mizinchik.persistence.filtering.Aggregation;
 import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.Join;
+import io.github.mizinchik.persistence.filtering.Ordering;
 import io.github.mizinchik.persistence.logging.Banner;
 import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import io.github.mizinchik.persistence.storage.ColumnStore;
+import io.github.mizinchik.persistence.storage.FieldIndex;
+import io.github.mizinchik.persistence.storage.RecordBuffer;
+import io.github.mizinchik.persistence.storage.Versions;
+import io.github.mizinchik.persistence.storage.WriteAheadLog;
+import io.github.mizinchik.persistence.storage.ZoneMap;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
-import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 import org.json.JSONObject;
 import static java.util.UUID.randomUUID;
 
 public class JsonSession implements Session {
     private static final String SUBDIRECTORY = "jvivo";
-    private static final String GLOB = "*.jvivo";
     private static final String EXTENSION = ".jvivo";
     private static final Banner BANNER = new Banner();
-    private final Map<Class, AttributeFilter> deleteFilters;
-    private final IdentityHashMap<Class, Set<String>> dumps;
+    private static final String FLUSHER = "jvivo-flush";
+    private static final long MIN_CHECK_MILLIS = 10;
+    private static final int AGE_CHECKS = 4;
+    private final Map<Class<?>, AttributeFilter> deleteFilters;
+    private final Map<Class<?>, RecordBuffer> dumps;
+    private final Map<Class<?>, RecordBuffer> inFlight;
+    private final ReadWriteLock pending;
+    private final AtomicLong offHeap;
     private final JsonSerializer jsonSerializer;
+    private final Set<Class<?>> columnar;
+    private final AtomicBoolean flushQueued;
+    private final AtomicLong oldest;
+    private final AtomicLong flushes;
+    private final AtomicLong failedFlushes;
+    private volatile FlushPolicy flushPolicy;
+    private ScheduledExecutorService flusher;
     private Path directory;
 
     public JsonSession() {
+        this(RecordBuffer.DEFAULT_CAPACITY);
+    }
+
+    public JsonSession(long bufferCapacity) {
         directory = Path.of(String.valueOf(this.getClass().getClassLoader().getResource(""))).resolve(SUBDIRECTORY);
-        dumps = new IdentityHashMap<>();
-        deleteFilters = new HashMap<>();
-        jsonSerializer = new JsonSerializer();
+        dumps = new ConcurrentHashMap<>();
+        inFlight = new ConcurrentHashMap<>();
+        pending = new ReentrantReadWriteLock();
+        deleteFilters = new ConcurrentHashMap<>();
+        jsonSerializer = JsonSerializer.withReferences();
+        columnar = ConcurrentHashMap.newKeySet();
+        offHeap = new AtomicLong(bufferCapacity);
+        flushQueued = new AtomicBoolean();
+        oldest = new AtomicLong();
+        flushes = new AtomicLong();
+        failedFlushes = new AtomicLong();
+        flushPolicy = FlushPolicy.manual();
     }
 
     @Override
     public void setDirectory(Path directory) {
         this.directory = directory;
+        wal();
+    }
+
+    @Override
+    public void setColumnar(Class<?> clazz, boolean enabled) {
+        if (enabled) {
+            columnar.add(clazz);
+        } else {
+            columnar.remove(clazz);
+        }
+    }
+
+    @Override
+    public void createIndex(Class<?> clazz, String field) {
+        persist();
+        Path classDirectory = directory.resolve(clazz.getName());
+        Versions versions = Versions.lock(classDirectory);
+        try {
+            FieldIndex.create(clazz, classDirectory, field, versions.files());
+        } finally {
+            versions.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void setFlushPolicy(FlushPolicy flushPolicy) {
+        this.flushPolicy = flushPolicy;
+        if (flusher != null) {
+            flusher.close();
+            flusher = null;
+        }
+        if (flushPolicy.isManual()) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name(FLUSHER).factory());
+        if (flushPolicy.isAged()) {
+            long period = Math.max(MIN_CHECK_MILLIS, flushPolicy.getMaxAge().toMillis() / AGE_CHECKS);
+            flusher.scheduleAtFixedRate(this::flushIfCrossed, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public BufferMetrics getBufferMetrics() {
+        long records = 0;
+        long bytes = 0;
+        long offHeapBytes = 0;
+        long spilled = 0;
+        for (RecordBuffer dump : dumps.values()) {
+            records += dump.size();
+            bytes += dump.bytes();
+            offHeapBytes += dump.offHeapBytes();
+            spilled += dump.spilled();
+        }
+        long since = oldest.get();
+        Duration age = since == 0 || records == 0 ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - since);
+        return new BufferMetrics(records, bytes, offHeapBytes, spilled, age, flushes.get(), failedFlushes.get());
+    }
+
+    private void flushIfCrossed() {
+        BufferMetrics metrics = getBufferMetrics();
+        if (flushPolicy.isCrossed(metrics.records(), metrics.bytes(), metrics.oldest())
+                && flushQueued.compareAndSet(false, true)) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        flushQueued.set(false);
+        try {
+            persist();
+            flushes.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedFlushes.incrementAndGet();
+        }
+    }
+
+    private synchronized void scheduleFlush() {
+        if (flusher == null || !flushQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flusher.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            flushQueued.set(false);
+        }
     }
 
     @Override
     public <T> void insert(T object) {
-        Set<String> currentDump = dumps.getOrDefault(object.getClass(), new HashSet<>());
-        currentDump.add(jsonSerializer.serialize(object));
-        dumps.put(object.getClass(), currentDump);
+        append(object.getClass(), jsonSerializer.serialize(object));
+    }
+
+    @Override
+    public void importFrom(Class<?> clazz, Path source) {
+        try (Stream<JSONObject> records = JsonLines.records(source)) {
+            records.forEach(json -> append(clazz, json.toString()));
+        }
+    }
+
+    @Override
+    public void exportTo(Class<?> clazz, Path target) {
+        persist();
+        try (Pinned snapshot = pin(clazz); BufferedWriter writer = Files.newBufferedWriter(target)) {
+            for (String json : snapshot.pending()) {
+                writeLine(writer, json);
+            }
+            for (Path path : snapshot.paths()) {
+                try {
+                    writeLine(writer, Files.readString(path));
+                } catch (NoSuchFileException ignored) {
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void writeLine(BufferedWriter writer, String json) throws IOException {
+        writer.write(json.indexOf('\n') < 0 ? json : new JSONObject(json).toString());
+        writer.write('\n');
+    }
+
+    private void append(Class<?> type, String json) {
+        dumps.compute(type, (clazz, currentDump) -> {
+            RecordBuffer dump = currentDump == null ? new RecordBuffer(offHeap) : currentDump;
+            dump.add(json);
+            return dump;
+        });
+        oldest.compareAndSet(0, System.nanoTime());
+        FlushPolicy policy = flushPolicy;
+        if (!policy.isManual()) {
+            BufferMetrics metrics = getBufferMetrics();
+            if (policy.isCrossed(metrics.records(), metrics.bytes())) {
+                scheduleFlush();
+            }
+        }
     }
 
     @Override
     public <T> List<T> find(Class<T> clazz) {
-        if (deleteFilters.containsKey(clazz)) {
-            return obtainStream(clazz).toListExclude(deleteFilters.get(clazz));
-        } else {
-            return obtainStream(clazz).toList();
+        try (Pinned snapshot = pin(clazz)) {
+            JsonSerialStream<T> serialStream = obtainStream(clazz, snapshot, Set.of());
+            AttributeFilter filter = deleteFilters.get(clazz);
+            if (filter != null) {
+                return serialStream.toListExclude(filter);
+            } else {
+                return serialStream.toList();
+            }
         }
     }
 
     @Override
     public <T> List<T> find(Class<T> clazz, AttributeFilter filter) {
         persist();
-        return obtainStream(clazz).toList(filter);
+        try (Pinned snapshot = pin(clazz)) {
+            return find(clazz, filter, snapshot);
+        }
+    }
+
+    @Override
+    public <T> List<T> findPersisted(Class<T> clazz, AttributeFilter filter) {
+        try (Pinned snapshot = new Pinned(Versions.pin(directory.resolve(clazz.getName())), List.of())) {
+            return find(clazz, filter, snapshot);
+        }
+    }
+
+    private <T> List<T> find(Class<T> clazz, AttributeFilter filter, Pinned snapshot) {
+        Path classDirectory = directory.resolve(clazz.getName());
+        if (columnar.contains(clazz)) {
+            ColumnStore<T> columnStore = new ColumnStore<>(clazz, classDirectory, snapshot.version());
+            if (!columnStore.exists()) {
+                columnStore.compact(snapshot.paths());
+            }
+            return columnStore.find(filter);
+        }
+        Optional<Set<String>> candidates = snapshot.pending().isEmpty()
+                ? candidates(clazz, filter)
+                : Optional.empty();
+        if (candidates.isPresent()) {
+            return obtainStream(clazz, snapshot.paths().stream()
+                    .filter(path -> candidates.get().contains(path.getFileName().toString()))
+                    .toList()).toList(filter);
+        }
+        return obtainStream(clazz, snapshot, excluded(clazz, filter)).toList(filter);
+    }
+
+    @Override
+    public <T> List<T> find(Class<T> clazz, AttributeFilter filter, Ordering ordering) {
+        persist();
+        try (Pinned snapshot = pin(clazz)) {
+            FieldIndex index = indexes(clazz).get(ordering.getField());
+            if (index != null && ordering.isLimited() && snapshot.pending().isEmpty()) {
+                Optional<List<T>> ordered = ordered(clazz, filter, ordering, index, snapshot);
+                if (ordered.isPresent()) {
+                    return ordered.get();
+                }
+            }
+            return obtainStream(clazz, snapshot, excluded(clazz, filter)).toList(filter, ordering);
+        }
     }
 
-    private <T> JsonSerialStream<T> obtainStream(Class<T> clazz) {
+    private <T> Optional<List<T>> ordered(Class<T> clazz, AttributeFilter filter, Ordering ordering,
+                                          FieldIndex index, Pinned snapshot) {
+        Path classDirectory = directory.resolve(clazz.getName());
+        boolean ascending = ordering.getDirection() == Ordering.Direction.ASCENDING;
+        for (int window = ordering.getLimit(); window > 0; window *= 2) {
+            Optional<List<String>> files = index.ordered(ascending, window);
+            if (files.isEmpty()) {
+                return Optional.empty();
+            }
+            List<Path> paths = files.get().stream()
+                    .filter(snapshot.files()::contains)
+                    .map(classDirectory::resolve)
+                    .toList();
+            List<T> found = obtainStream(clazz, paths).toList(filter);
+            if (found.size() >= ordering.getLimit()) {
+                return Optional.of(List.copyOf(found.subList(0, ordering.getLimit())));
+            }
+            if (files.get().size() < window) {
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Set<String>> candidates(Class<?> clazz, AttributeFilter filter) {
+        Map<String, FieldIndex> indexes = indexes(clazz);
+        if (indexes.isEmpty()) {
+            return Optional.empty();
+        }
+        Set<String> result = null;
+        for (var required : filter.getRequiredPredicates()) {
+            FieldIndex index = indexes.get(required.getKey());
+            Optional<Set<String>> files = index == null ? Optional.empty() : index.candidates(required.getValue());
+            if (files.isPresent()) {
+                if (result == null) {
+                    result = new HashSet<>(files.get());
+                } else {
+                    result.retainAll(files.get());
+                }
+            }
+        }
+        return Optional.ofNullable(result);
+    }
+
+    private Map<String, FieldIndex> indexes(Class<?> clazz) {
+        return FieldIndex.of(clazz, directory.resolve(clazz.getName()));
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> findPublisher(Class<T> clazz) {
+        return new SerialPublisher<>(() -> {
+            Pinned snapshot = pin(clazz);
+            JsonSerialStream<T> serialStream = obtainStream(clazz, snapshot, Set.of());
+            AttributeFilter filter = deleteFilters.get(clazz);
+            Stream<T> stream = filter == null ? serialStream.stream() : serialStream.streamExclude(filter);
+            return stream.onClose(snapshot::close);
+        });
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> findPublisher(Class<T> clazz, AttributeFilter filter) {
+        persist();
+        return new SerialPublisher<>(() -> {
+            Set<String> excluded = excluded(clazz, filter);
+            Pinned snapshot = pin(clazz);
+            return obtainStream(clazz, snapshot, excluded).stream(filter).onClose(snapshot::close);
+        });
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> findPublisher(Class<T> clazz, AttributeFilter filter, Ordering ordering) {
+        persist();
+        return new SerialPublisher<>(() -> {
+            Set<String> excluded = excluded(clazz, filter);
+            Pinned snapshot = pin(clazz);
+            return obtainStream(clazz, snapshot, excluded).stream(filter, ordering).onClose(snapshot::close);
+        });
+    }
+
+    @Override
+    public <T> Object aggregate(Class<T> clazz, AttributeFilter filter, String field, Aggregation aggregation) {
+        persist();
+        try (Pinned snapshot = pin(clazz)) {
+            return obtainStream(clazz, snapshot, excluded(clazz, filter)).aggregate(filter, field, aggregation);
+        }
+    }
+
+    @Override
+    public <T> Map<Object, Object> groupBy(Class<T> clazz, AttributeFilter filter, String groupField, String field,
+                                           Aggregation aggregation) {
+        persist();
+        try (Pinned snapshot = pin(clazz)) {
+            return obtainStream(clazz, snapshot, excluded(clazz, filter))
+                    .groupBy(filter, groupField, field, aggregation);
+        }
+    }
+
+    @Override
+    public <L, R> List<Map.Entry<L, R>> join(Join<L, R> join) {
+        persist();
+        try (Pinned left = pin(join.getLeftClass());
+             Pinned right = pin(join.getRightClass())) {
+            Set<String> leftExcluded = excluded(join.getLeftClass(), join.getLeftFilter());
+            Set<String> rightExcluded = excluded(join.getRightClass(), join.getRightFilter());
+            return HashJoin.pairs(
+                    obtainStream(join.getLeftClass(), left, leftExcluded),
+                    obtainStream(join.getRightClass(), right, rightExcluded),
+                    join,
+                    remaining(left, leftExcluded) <= remaining(right, rightExcluded));
+        }
+    }
+
+    @Override
+    public <L, R> List<Map.Entry<Map<String, Object>, Map<String, Object>>> joinFields(Join<L, R> join) {
+        persist();
+        try (Pinned left = pin(join.getLeftClass());
+             Pinned right = pin(join.getRightClass())) {
+            Set<String> leftExcluded = excluded(join.getLeftClass(), join.getLeftFilter());
+            Set<String> rightExcluded = excluded(join.getRightClass(), join.getRightFilter());
+            return HashJoin.fields(
+                    obtainStream(join.getLeftClass(), left, leftExcluded),
+                    obtainStream(join.getRightClass(), right, rightExcluded),
+                    join,
+                    remaining(left, leftExcluded) <= remaining(right, rightExcluded));
+        }
+    }
+
+    private static long remaining(Pinned snapshot, Set<String> excluded) {
+        long bytes = snapshot.bytes();
+        for (String file : excluded) {
+            bytes -= snapshot.sizes().getOrDefault(file, 0L);
+        }
+        return bytes;
+    }
+
+    private Set<String> excluded(Class<?> clazz, AttributeFilter filter) {
+        if (filter == null) {
+            return Set.of();
+        }
+        return new ZoneMap(clazz, directory.resolve(clazz.getName())).excluded(filter);
+    }
+
+    private <T> JsonSerialStream<T> obtainStream(Class<T> clazz, List<Path> paths) {
         JsonSerialStream<T> serialStream = new JsonSerialStream<>(clazz);
-        if (dumps.containsKey(clazz)) {
-            serialStream.addAll(dumps.get(clazz));
+        for (Path file : paths) {
+            serialStream.add(file.toFile());
+        }
+        return serialStream;
+    }
+
+    private Pinned pin(Class<?> clazz) {
+        pending.readLock().lock();
+        try {
+            Versions.Snapshot snapshot = Versions.pin(directory.resolve(clazz.getName()));
+            List<String> records = new ArrayList<>();
+            RecordBuffer flushing = inFlight.get(clazz);
+            if (flushing != null) {
+                records.addAll(flushing.records());
+            }
+            RecordBuffer dump = dumps.get(clazz);
+            if (dump != null) {
+                records.addAll(dump.records());
+            }
+            return new Pinned(snapshot, records);
+        } finally {
+            pending.readLock().unlock();
         }
-        try (DirectoryStream<Path> persisted = Files.newDirectoryStream(directory.resolve(clazz.getName()), GLOB)) {
-            for (Path file : persisted) {
+    }
+
+    private <T> JsonSerialStream<T> obtainStream(Class<T> clazz, Pinned snapshot, Set<String> excluded) {
+        JsonSerialStream<T> serialStream = new JsonSerialStream<>(clazz);
+        if (!snapshot.pending().isEmpty()) {
+            serialStream.addAll(snapshot.pending());
+        }
+        for (Path file : snapshot.paths()) {
+            if (!excluded.contains(file.getFileName().toString())) {
                 serialStream.add(file.toFile());
             }
-        } catch (IOException ignored) {
         }
         return serialStream;
     }
 
     @Override
     public <T> void delete(Class<T> clazz, AttributeFilter filter) {
-        if (deleteFilters.containsKey(clazz)) {
-            deleteFilters.put(clazz, deleteFilters.get(clazz).or(filter));
-        } else {
-            deleteFilters.put(clazz, filter);
-        }
+        deleteFilters.merge(clazz, filter, AttributeFilter::or);
     }
 
-
     @Override
     public void persist() {
-        for (var clazz : dumps.keySet()) {
-            Path classDirectory = directory.resolve(clazz.getName());
-            try {
-                Files.createDirectories(classDirectory);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        Set<Class<?>> classes = new TreeSet<>(Comparator.comparing(Class::getName));
+        classes.addAll(dumps.keySet());
+        classes.addAll(deleteFilters.keySet());
+        Map<Class<?>, Versions> locked = new LinkedHashMap<>();
+        List<RecordBuffer> landed = new ArrayList<>();
+        Set<String> published = new HashSet<>();
+        List<Path> written = new ArrayList<>();
+        List<Path> unpublished = new ArrayList<>();
+        long entry = WriteAheadLog.NONE;
+        try {
+            for (var clazz : classes) {
+                locked.put(clazz, Versions.lock(directory.resolve(clazz.getName())));
             }
-            for (var obj : dumps.get(clazz)) {
+            Map<Class<?>, WriteAheadLog.Batch> batches = prepare(locked);
+            entry = append(batches);
+            for (var batch : batches.entrySet()) {
+                Versions versions = locked.get(batch.getKey());
+                written.addAll(write(batch.getKey(), versions, batch.getValue(), unpublished));
+                pending.writeLock().lock();
                 try {
-                    Path newFile = classDirectory.resolve(randomUUID() + EXTENSION);
-                    Files.createFile(newFile);
-                    Files.writeString(newFile, obj);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
+                    versions.publish(
+                            new Versions.Change(batch.getValue().inserts().keySet(), batch.getValue().deletes()));
+                    Optional.ofNullable(inFlight.remove(batch.getKey())).ifPresent(landed::add);
+                } finally {
+                    pending.writeLock().unlock();
+                }
+                published.add(batch.getKey().getName());
+                written.addAll(unpublished);
+                unpublished.clear();
+            }
+            wal().applied(entry, written, classDirectories(published));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            try {
+                Set<String> aborted = new TreeSet<>();
+                classes.forEach(clazz -> aborted.add(clazz.getName()));
+                aborted.removeAll(published);
+                wal().aborted(entry, aborted, written, classDirectories(published));
+            } finally {
+                restore(classes);
+                landed.forEach(RecordBuffer::release);
+                unpublished.forEach(JsonSession::deleteQuietly);
+                locked.values().forEach(Versions::unlock);
+            }
+        }
+    }
+
+    private List<Path> write(Class<?> clazz, Versions versions, WriteAheadLog.Batch batch, List<Path> files)
+            throws IOException {
+        Path classDirectory = directory.resolve(clazz.getName());
+        for (var insert : batch.inserts().entrySet()) {
+            Path newFile = classDirectory.resolve(insert.getKey());
+            files.add(newFile);
+            Files.writeString(newFile, insert.getValue());
+        }
+        new ZoneMap(clazz, classDirectory).write(batch.inserts());
+        return index(clazz, classDirectory, versions, batch);
+    }
+
+    private List<Path> classDirectories(Set<String> classes) {
+        return classes.stream().map(directory::resolve).toList();
+    }
+
+    private void restore(Set<Class<?>> classes) {
+        pending.writeLock().lock();
+        try {
+            for (var clazz : classes) {
+                RecordBuffer taken = inFlight.remove(clazz);
+                if (taken != null) {
+                    dumps.merge(clazz, taken, (current, restored) -> {
+                        current.addAll(restored);
+                        return current;
+                    });
+                    oldest.compareAndSet(0, System.nanoTime());
                 }
             }
+        } finally {
+            pending.writeLock().unlock();
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private List<Path> index(Class<?> clazz, Path classDirectory, Versions versions, WriteAheadLog.Batch batch) {
+        List<Path> written = new ArrayList<>();
+        Map<String, String> inserts = new LinkedHashMap<>(batch.inserts());
+        inserts.keySet().removeAll(batch.deletes());
+        int retired = batch.deletes().size() - (batch.inserts().size() - inserts.size());
+        for (FieldIndex index : indexes(clazz).values()) {
+            index.insert(inserts);
+            if (retired > 0) {
+                Set<String> files = new HashSet<>(versions.files());
+                files.addAll(inserts.keySet());
+                files.removeAll(batch.deletes());
+                index.retire(retired, classDirectory, files);
+            }
+            index.flush();
+            written.add(index.file());
         }
-        dumps.clear();
-        for (var clazz : deleteFilters.keySet()) {
+        return written;
+    }
+
+    private Map<Class<?>, WriteAheadLog.Batch> prepare(Map<Class<?>, Versions> locked) throws IOException {
+        Map<Class<?>, WriteAheadLog.Batch> batches = new LinkedHashMap<>();
+        for (var clazz : locked.keySet()) {
             Path classDirectory = directory.resolve(clazz.getName());
+            Files.createDirectories(classDirectory);
+            RecordBuffer dump;
+            pending.writeLock().lock();
             try {
-                Files.createDirectories(classDirectory);
-            } catch (IOException e) {
-                return;
+                dump = dumps.remove(clazz);
+                if (dump != null) {
+                    inFlight.put(clazz, dump);
+                }
+            } finally {
+                pending.writeLock().unlock();
+            }
+            Map<String, String> inserts = new LinkedHashMap<>();
+            if (dump != null) {
+                dump.forEach(obj -> inserts.put(randomUUID() + EXTENSION, obj));
             }
             AttributeFilter filter = deleteFilters.get(clazz);
-            try (DirectoryStream<Path> persisted = Files.newDirectoryStream(classDirectory, GLOB)) {
-                for (Path file : persisted) {
-                    if (filter.evaluate(new JsonDeserializer<>(
-                            new JSONObject(Files.readString(file)),
-                            clazz)
-                            .getRelevantFields(filter.getNecessaryFields()))) {
-                        Files.delete(file);
-                    }
-                }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            Set<String> deletes = filter == null
+                    ? Set.of()
+                    : matching(clazz, classDirectory, locked.get(clazz).files(), inserts, filter);
+            if (!inserts.isEmpty() || !deletes.isEmpty()) {
+                batches.put(clazz, new WriteAheadLog.Batch(inserts, deletes));
             }
         }
+        return batches;
+    }
+
+    private long append(Map<Class<?>, WriteAheadLog.Batch> batches) {
+        Map<String, WriteAheadLog.Batch> entry = new LinkedHashMap<>();
+        batches.forEach((clazz, batch) -> entry.put(clazz.getName(), batch));
+        long position = wal().append(entry);
+        oldest.set(dumps.isEmpty() ? 0 : System.nanoTime());
+        return position;
+    }
+
+    private WriteAheadLog wal() {
+        return WriteAheadLog.of(directory);
+    }
+
+    private Set<String> matching(Class<?> clazz, Path classDirectory, Set<String> files, Map<String, String> inserts,
+                                 AttributeFilter filter) throws IOException {
+        Set<String> excluded = new ZoneMap(clazz, classDirectory).excluded(filter);
+        Set<String> removed = new HashSet<>();
+        for (String file : files) {
+            if (!excluded.contains(file) && matches(clazz, Files.readString(classDirectory.resolve(file)), filter)) {
+                removed.add(file);
+            }
+        }
+        for (var insert : inserts.entrySet()) {
+            if (matches(clazz, insert.getValue(), filter)) {
+                removed.add(insert.getKey());
+            }
+        }
+        return removed;
+    }
+
+    private static boolean matches(Class<?> clazz, String json, AttributeFilter filter) {
+        return filter.evaluate(new JsonDeserializer<>(NumberTokener.parseObject(json), clazz)
+                .getRelevantFields(filter.getNecessaryFields()));
     }
 
     @Override
@@ -145,4 +670,31 @@ public class JsonSession implements Session {
     public <T> SerialStream<T> getSerializer(Class<T> clazz) {
         return new JsonSerialStream<>(clazz);
     }
+
+    private record Pinned(Versions.Snapshot snapshot, List<String> pending) implements AutoCloseable {
+        private long version() {
+            return snapshot.version();
+        }
+
+        private Set<String> files() {
+            return snapshot.files();
+        }
+
+        private List<Path> paths() {
+            return snapshot.paths();
+        }
+
+        private Map<String, Long> sizes() {
+            return snapshot.sizes();
+        }
+
+        private long bytes() {
+            return snapshot.bytes();
+        }
+
+        @Override
+        public void close() {
+            snapshot.close();
+        }
+    }
 }
@@ -2,20 +2,56 @@ package io.github.mizinchik.persistence.session;
 
 import io.github.mizinchik.persistence.deserialization.Deserializer;
 import io.github.mizinchik.persistence.deserialization.SerialStream;
+import io.github.mizinchik.persistence.filtering.Aggregation;
 import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.Join;
+import io.github.mizinchik.persistence.filtering.Ordering;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
 import org.json.JSONObject;
 
 public interface Session {
     void setDirectory(Path directory);
 
+    void setColumnar(Class<?> clazz, boolean enabled);
+
+    void createIndex(Class<?> clazz, String field);
+
+    void setFlushPolicy(FlushPolicy flushPolicy);
+
+    BufferMetrics getBufferMetrics();
+
     <T> void insert(T object);
 
+    void importFrom(Class<?> clazz, Path source);
+
+    void exportTo(Class<?> clazz, Path target);
+
     <T> List<T> find(Class<T> clazz);
 
     <T> List<T> find(Class<T> clazz, AttributeFilter filter);
 
+    <T> List<T> findPersisted(Class<T> clazz, AttributeFilter filter);
+
+    <T> List<T> find(Class<T> clazz, AttributeFilter filter, Ordering ordering);
+
+    <T> Flow.Publisher<T> findPublisher(Class<T> clazz);
+
+    <T> Flow.Publisher<T> findPublisher(Class<T> clazz, AttributeFilter filter);
+
+    <T> Flow.Publisher<T> findPublisher(Class<T> clazz, AttributeFilter filter, Ordering ordering);
+
+    <T> Object aggregate(Class<T> clazz, AttributeFilter filter, String field, Aggregation aggregation);
+
+    <T> Map<Object, Object> groupBy(Class<T> clazz, AttributeFilter filter, String groupField, String field,
+                                    Aggregation aggregation);
+
+    <L, R> List<Map.Entry<L, R>> join(Join<L, R> join);
+
+    <L, R> List<Map.Entry<Map<String, Object>, Map<String, Object>>> joinFields(Join<L, R> join);
+
     <T> void delete(Class<T> clazz, AttributeFilter filter);
 
     void persist();
@@ -0,0 +1,483 @@
+package io.github.mizinchik.persistence.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class BPlusTree implements Closeable {
+    static final int PAGE_SIZE = 4096;
+    private static final int MAGIC = 0x4a565442;
+    private static final int NONE = -1;
+    private static final int CACHE_PAGES = 256;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int FILL = PAGE_SIZE * 9 / 10;
+    private static final int HEADER = Byte.BYTES + Short.BYTES + 2 * Integer.BYTES;
+    private static final int ENTRY_OVERHEAD = 2 * Short.BYTES;
+    private static final byte LEAF = 0;
+    private static final byte INTERNAL = 1;
+    private final FileChannel channel;
+    private final Map<Integer, Node> cache;
+    private int root;
+    private int pageCount;
+    private long entries;
+    private long stale;
+    private boolean lossy;
+
+    private BPlusTree(FileChannel channel) {
+        this.channel = channel;
+        cache = new LinkedHashMap<>(CACHE_PAGES, LOAD_FACTOR, true);
+    }
+
+    static BPlusTree open(Path file) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            BPlusTree tree = new BPlusTree(channel);
+            if (channel.size() < PAGE_SIZE) {
+                tree.pageCount = 1;
+                Node leaf = tree.allocate(true);
+                tree.root = leaf.id;
+                tree.flush();
+            } else {
+                tree.readMeta();
+            }
+            return tree;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static BPlusTree bulkLoad(Path file, Iterator<byte[][]> sorted) {
+        BPlusTree tree = open(file);
+        tree.cache.clear();
+        tree.pageCount = 1;
+        tree.entries = 0;
+        tree.stale = 0;
+        tree.lossy = false;
+        try {
+            tree.channel.truncate(PAGE_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Node> level = new ArrayList<>();
+        Node leaf = tree.allocate(true);
+        level.add(leaf);
+        while (sorted.hasNext()) {
+            byte[][] entry = sorted.next();
+            if (leaf.size() + entrySize(entry[0], entry[1], true) > FILL && leaf.count() > 0) {
+                Node next = tree.allocate(true);
+                leaf.next = next.id;
+                next.prev = leaf.id;
+                level.add(next);
+                tree.trim(leaf);
+                leaf = next;
+            }
+            leaf.keys.add(entry[0]);
+            leaf.values.add(entry[1]);
+            tree.entries++;
+        }
+        while (level.size() > 1) {
+            level = tree.buildLevel(level);
+        }
+        tree.root = level.getFirst().id;
+        tree.flush();
+        return tree;
+    }
+
+    synchronized void insert(byte[] key, byte[] value) {
+        Split split = insert(root, key, value);
+        if (split != null) {
+            Node newRoot = allocate(false);
+            newRoot.children.add(root);
+            newRoot.keys.add(split.key());
+            newRoot.values.add(split.value());
+            newRoot.children.add(split.right());
+            root = newRoot.id;
+        }
+        entries++;
+    }
+
+    synchronized void retire(long count) {
+        stale += count;
+    }
+
+    synchronized long entries() {
+        return entries;
+    }
+
+    synchronized long stale() {
+        return stale;
+    }
+
+    synchronized void markLossy() {
+        lossy = true;
+    }
+
+    synchronized boolean isLossy() {
+        return lossy;
+    }
+
+    synchronized List<byte[]> range(byte[] low, byte[] high, boolean prefix) {
+        List<byte[]> result = new ArrayList<>();
+        Node leaf = low == null ? leftmost() : seek(low);
+        int position = low == null ? 0 : lowerBound(leaf, low, new byte[0]);
+        while (leaf != null) {
+            for (int i = position; i < leaf.count(); i++) {
+                byte[] key = leaf.keys.get(i);
+                if (prefix ? !startsWith(key, high) : high != null && Arrays.compareUnsigned(key, high) > 0) {
+                    return result;
+                }
+                result.add(leaf.values.get(i));
+            }
+            leaf = leaf.next == NONE ? null : load(leaf.next);
+            position = 0;
+        }
+        return result;
+    }
+
+    synchronized List<byte[]> ordered(boolean ascending, int limit) {
+        List<byte[]> result = new ArrayList<>();
+        Node leaf = ascending ? leftmost() : rightmost();
+        while (leaf != null && result.size() < limit) {
+            int count = leaf.count();
+            for (int i = 0; i < count && result.size() < limit; i++) {
+                result.add(leaf.values.get(ascending ? i : count - 1 - i));
+            }
+            int sibling = ascending ? leaf.next : leaf.prev;
+            leaf = sibling == NONE ? null : load(sibling);
+        }
+        return result;
+    }
+
+    synchronized void flush() {
+        try {
+            for (Node node : cache.values()) {
+                if (node.dirty) {
+                    write(node);
+                }
+            }
+            ByteBuffer meta = ByteBuffer.allocate(PAGE_SIZE);
+            meta.putInt(MAGIC).putInt(root).putInt(pageCount)
+                    .putLong(entries).putLong(stale)
+                    .put((byte) (lossy ? 1 : 0));
+            meta.flip();
+            channel.write(meta, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        trim(null);
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readMeta() throws IOException {
+        ByteBuffer meta = ByteBuffer.allocate(PAGE_SIZE);
+        channel.read(meta, 0);
+        meta.flip();
+        if (meta.getInt() != MAGIC) {
+            throw new IOException("Not an index file");
+        }
+        root = meta.getInt();
+        pageCount = meta.getInt();
+        entries = meta.getLong();
+        stale = meta.getLong();
+        lossy = meta.get() != 0;
+    }
+
+    private Split insert(int pageId, byte[] key, byte[] value) {
+        Node node = load(pageId);
+        if (node.leaf) {
+            int position = lowerBound(node, key, value);
+            node.keys.add(position, key);
+            node.values.add(position, value);
+            node.dirty = true;
+            return node.size() > PAGE_SIZE ? splitLeaf(node) : null;
+        }
+        int index = childIndex(node, key, value);
+        Split split = insert(node.children.get(index), key, value);
+        if (split == null) {
+            return null;
+        }
+        node.keys.add(index, split.key());
+        node.values.add(index, split.value());
+        node.children.add(index + 1, split.right());
+        node.dirty = true;
+        return node.size() > PAGE_SIZE ? splitInternal(node) : null;
+    }
+
+    private Split splitLeaf(Node left) {
+        Node right = allocate(true);
+        int middle = left.count() / 2;
+        move(left, right, middle);
+        right.next = left.next;
+        right.prev = left.id;
+        if (left.next != NONE) {
+            Node next = load(left.next);
+            next.prev = right.id;
+            next.dirty = true;
+        }
+        left.next = right.id;
+        return new Split(right.keys.getFirst(), right.values.getFirst(), right.id);
+    }
+
+    private Split splitInternal(Node left) {
+        Node right = allocate(false);
+        int middle = left.count() / 2;
+        byte[] key = left.keys.get(middle);
+        byte[] value = left.values.get(middle);
+        right.keys.addAll(left.keys.subList(middle + 1, left.count()));
+        right.values.addAll(left.values.subList(middle + 1, left.count()));
+        right.children.addAll(left.children.subList(middle + 1, left.children.size()));
+        left.keys.subList(middle, left.count()).clear();
+        left.values.subList(middle, left.values.size()).clear();
+        left.children.subList(middle + 1, left.children.size()).clear();
+        left.dirty = true;
+        return new Split(key, value, right.id);
+    }
+
+    private static void move(Node left, Node right, int from) {
+        right.keys.addAll(left.keys.subList(from, left.count()));
+        right.values.addAll(left.values.subList(from, left.values.size()));
+        left.keys.subList(from, left.count()).clear();
+        left.values.subList(from, left.values.size()).clear();
+        left.dirty = true;
+    }
+
+    private List<Node> buildLevel(List<Node> children) {
+        List<Node> parents = new ArrayList<>();
+        Node parent = allocate(false);
+        parents.add(parent);
+        parent.children.add(children.getFirst().id);
+        for (int i = 1; i < children.size(); i++) {
+            Node child = children.get(i);
+            byte[][] first = firstEntry(child);
+            if (parent.size() + entrySize(first[0], first[1], false) > FILL) {
+                trim(parent);
+                parent = allocate(false);
+                parents.add(parent);
+                parent.children.add(child.id);
+                continue;
+            }
+            parent.keys.add(first[0]);
+            parent.values.add(first[1]);
+            parent.children.add(child.id);
+        }
+        return parents;
+    }
+
+    private byte[][] firstEntry(Node node) {
+        Node current = node;
+        while (!current.leaf) {
+            current = load(current.children.getFirst());
+        }
+        return new byte[][]{current.keys.getFirst(), current.values.getFirst()};
+    }
+
+    private Node seek(byte[] key) {
+        Node node = load(root);
+        while (!node.leaf) {
+            node = load(node.children.get(childIndex(node, key, new byte[0])));
+        }
+        return node;
+    }
+
+    private Node leftmost() {
+        Node node = load(root);
+        while (!node.leaf) {
+            node = load(node.children.getFirst());
+        }
+        return node;
+    }
+
+    private Node rightmost() {
+        Node node = load(root);
+        while (!node.leaf) {
+            node = load(node.children.getLast());
+        }
+        return node;
+    }
+
+    private static int lowerBound(Node node, byte[] key, byte[] value) {
+        int low = 0;
+        int high = node.count();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(node.keys.get(middle), node.values.get(middle), key, value) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int childIndex(Node node, byte[] key, byte[] value) {
+        int low = 0;
+        int high = node.count();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(node.keys.get(middle), node.values.get(middle), key, value) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(byte[] firstKey, byte[] firstValue, byte[] secondKey, byte[] secondValue) {
+        int comparison = Arrays.compareUnsigned(firstKey, secondKey);
+        return comparison != 0 ? comparison : Arrays.compareUnsigned(firstValue, secondValue);
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        return key.length >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static int entrySize(byte[] key, byte[] value, boolean leaf) {
+        return ENTRY_OVERHEAD + key.length + value.length + (leaf ? 0 : Integer.BYTES);
+    }
+
+    private Node allocate(boolean leaf) {
+        Node node = new Node(pageCount++, leaf);
+        node.dirty = true;
+        cache.put(node.id, node);
+        return node;
+    }
+
+    private Node load(int pageId) {
+        Node cached = cache.get(pageId);
+        if (cached != null) {
+            return cached;
+        }
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        try {
+            while (page.hasRemaining()) {
+                if (channel.read(page, (long) pageId * PAGE_SIZE + page.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        page.flip();
+        Node node = new Node(pageId, page.get() == LEAF);
+        int count = page.getShort();
+        node.next = page.getInt();
+        node.prev = page.getInt();
+        if (!node.leaf) {
+            node.children.add(page.getInt());
+        }
+        for (int i = 0; i < count; i++) {
+            node.keys.add(readBytes(page));
+            node.values.add(readBytes(page));
+            if (!node.leaf) {
+                node.children.add(page.getInt());
+            }
+        }
+        cache.put(pageId, node);
+        return node;
+    }
+
+    private static byte[] readBytes(ByteBuffer page) {
+        byte[] bytes = new byte[page.getShort()];
+        page.get(bytes);
+        return bytes;
+    }
+
+    private void write(Node node) throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        page.put(node.leaf ? LEAF : INTERNAL);
+        page.putShort((short) node.count());
+        page.putInt(node.next);
+        page.putInt(node.prev);
+        if (!node.leaf) {
+            page.putInt(node.children.getFirst());
+        }
+        for (int i = 0; i < node.count(); i++) {
+            page.putShort((short) node.keys.get(i).length).put(node.keys.get(i));
+            page.putShort((short) node.values.get(i).length).put(node.values.get(i));
+            if (!node.leaf) {
+                page.putInt(node.children.get(i + 1));
+            }
+        }
+        page.flip();
+        channel.write(page, (long) node.id * PAGE_SIZE);
+        node.dirty = false;
+    }
+
+    private void trim(Node keep) {
+        if (cache.size() <= CACHE_PAGES) {
+            return;
+        }
+        try {
+            Iterator<Node> iterator = cache.values().iterator();
+            while (cache.size() > CACHE_PAGES && iterator.hasNext()) {
+                Node node = iterator.next();
+                if (node == keep) {
+                    continue;
+                }
+                if (node.dirty) {
+                    write(node);
+                }
+                iterator.remove();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Split(byte[] key, byte[] value, int right) {
+    }
+
+    private static final class Node {
+        private final int id;
+        private final boolean leaf;
+        private final List<byte[]> keys;
+        private final List<byte[]> values;
+        private final List<Integer> children;
+        private int next;
+        private int prev;
+        private boolean dirty;
+
+        private Node(int id, boolean leaf) {
+            this.id = id;
+            this.leaf = leaf;
+            keys = new ArrayList<>();
+            values = new ArrayList<>();
+            children = new ArrayList<>();
+            next = NONE;
+            prev = NONE;
+        }
+
+        private int count() {
+            return keys.size();
+        }
+
+        private int size() {
+            int size = HEADER + (leaf ? 0 : Integer.BYTES);
+            for (int i = 0; i < keys.size(); i++) {
+                size += entrySize(keys.get(i), values.get(i), leaf);
+            }
+            return size;
+        }
+    }
+}
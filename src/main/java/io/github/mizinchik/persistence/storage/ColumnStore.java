@@ -0,0 +1,314 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.codec.Codecs;
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.deserialization.NumberTokener;
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.FieldStatistics;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import static java.util.UUID.randomUUID;
+
+public class ColumnStore<T> {
+    public static final String DIRECTORY = "columns";
+    private static final String TEMPORARY = ".tmp";
+    private static final String ROWS = "@rows";
+    private static final String COLUMN = ".column";
+    private static final String STATISTICS = ".stats";
+    private static final String OFFSET = "offset";
+    private static final String LENGTH = "length";
+    private static final String ROW_COUNT = "rows";
+    private static final int ROW_GROUP_SIZE = 1024;
+    private final Class<T> clazz;
+    private final Path classDirectory;
+    private final Path directory;
+    private final List<String> fields;
+
+    public ColumnStore(Class<T> clazz, Path classDirectory, long version) {
+        this.clazz = clazz;
+        this.classDirectory = classDirectory;
+        this.directory = classDirectory.resolve(DIRECTORY).resolve(String.valueOf(version));
+        this.fields = StoredFields.of(clazz);
+    }
+
+    public boolean exists() {
+        return Files.isDirectory(directory);
+    }
+
+    public void compact(Collection<Path> rows) {
+        compact(rows, ROW_GROUP_SIZE);
+    }
+
+    void compact(Collection<Path> rows, int rowGroupSize) {
+        Path temporary = directory.resolveSibling(randomUUID() + TEMPORARY);
+        Map<String, ColumnWriter> writers = new LinkedHashMap<>();
+        try {
+            Files.createDirectories(temporary);
+            writers.put(ROWS, new ColumnWriter(temporary, ROWS));
+            for (String field : fields) {
+                writers.put(field, new ColumnWriter(temporary, field));
+            }
+            RowGroup group = new RowGroup(writers.keySet());
+            for (Path row : rows) {
+                JSONObject stored = readRecord(row);
+                if (stored == null) {
+                    continue;
+                }
+                group.add(ROWS, row.getFileName().toString(), row.getFileName().toString());
+                Map<String, Object> values = new JsonDeserializer<>(stored, clazz)
+                        .getRelevantFields(Set.copyOf(fields));
+                for (String field : fields) {
+                    group.add(field, stored.opt(field), values.get(field));
+                }
+                if (group.size() == rowGroupSize) {
+                    group.flush(writers);
+                }
+            }
+            group.flush(writers);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (ColumnWriter writer : writers.values()) {
+                writer.close();
+            }
+        }
+        try {
+            Files.move(temporary, directory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            deleteRecursively(temporary);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public List<T> find(AttributeFilter filter) {
+        List<T> result = new ArrayList<>();
+        Set<String> necessaryFields = filter.getNecessaryFields();
+        List<JSONObject> groups = readStatistics(ROWS);
+        Map<String, List<JSONObject>> statistics = new HashMap<>();
+        for (String field : necessaryFields) {
+            statistics.put(field, readStatistics(field));
+        }
+        for (int group = 0; group < groups.size(); group++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Scan interrupted");
+            }
+            if (!mayMatch(filter, statistics, group)) {
+                continue;
+            }
+            Map<String, JSONArray> columns = new HashMap<>();
+            for (String field : necessaryFields) {
+                columns.put(field, readSegment(field, statistics.get(field), group));
+            }
+            JSONArray rows = null;
+            int count = groups.get(group).getInt(ROW_COUNT);
+            for (int i = 0; i < count; i++) {
+                JSONObject row = Codecs.stamp(clazz, new JSONObject());
+                for (String field : necessaryFields) {
+                    row.put(field, columns.get(field).opt(i));
+                }
+                if (filter.evaluate(new JsonDeserializer<>(row, clazz).getRelevantFields(necessaryFields))) {
+                    if (rows == null) {
+                        rows = readSegment(ROWS, groups, group);
+                    }
+                    JSONObject stored = readRecord(classDirectory.resolve(rows.getString(i)));
+                    if (stored != null) {
+                        result.add(new JsonDeserializer<>(stored, clazz).instance());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    int matchingGroups(AttributeFilter filter) {
+        Map<String, List<JSONObject>> statistics = new HashMap<>();
+        for (String field : filter.getNecessaryFields()) {
+            statistics.put(field, readStatistics(field));
+        }
+        int groups = readStatistics(ROWS).size();
+        int matching = 0;
+        for (int group = 0; group < groups; group++) {
+            if (mayMatch(filter, statistics, group)) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    private boolean mayMatch(AttributeFilter filter, Map<String, List<JSONObject>> statistics, int group) {
+        Map<String, FieldStatistics> groupStatistics = new HashMap<>();
+        for (var entry : statistics.entrySet()) {
+            if (group < entry.getValue().size()) {
+                String field = entry.getKey();
+                groupStatistics.put(field, FieldStatistics.fromJson(entry.getValue().get(group),
+                        node -> StoredFields.decode(clazz, field, node)));
+            }
+        }
+        return filter.mayMatch(groupStatistics);
+    }
+
+    private List<JSONObject> readStatistics(String column) {
+        try (Stream<String> lines = Files.lines(directory.resolve(column + STATISTICS))) {
+            return lines.map(JSONObject::new).toList();
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JSONArray readSegment(String column, List<JSONObject> statistics, int group) {
+        if (statistics == null || group >= statistics.size()) {
+            return new JSONArray();
+        }
+        JSONObject segment = statistics.get(group);
+        ByteBuffer buffer = ByteBuffer.allocate(segment.getInt(LENGTH));
+        try (FileChannel channel = FileChannel.open(directory.resolve(column + COLUMN), StandardOpenOption.READ)) {
+            long position = segment.getLong(OFFSET);
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new JSONArray(new NumberTokener(new String(buffer.array(), 0, buffer.position(),
+                StandardCharsets.UTF_8)));
+    }
+
+    private static JSONObject readRecord(Path row) {
+        try {
+            return NumberTokener.parseObject(Files.readString(row));
+        } catch (IOException | JSONException e) {
+            return null;
+        }
+    }
+
+    static void deleteOlderThan(Path classDirectory, long version) {
+        try (DirectoryStream<Path> versions = Files.newDirectoryStream(classDirectory.resolve(DIRECTORY))) {
+            for (Path path : versions) {
+                String name = path.getFileName().toString();
+                if (!name.endsWith(TEMPORARY) && Long.parseLong(name) < version) {
+                    deleteRecursively(path);
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteRecursively(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path file : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class RowGroup {
+        private final Map<String, JSONArray> values;
+        private final Map<String, FieldStatistics> statistics;
+        private int size;
+
+        private RowGroup(Collection<String> columns) {
+            values = new HashMap<>();
+            statistics = new HashMap<>();
+            for (String column : columns) {
+                values.put(column, new JSONArray());
+                statistics.put(column, new FieldStatistics());
+            }
+        }
+
+        private void add(String column, Object node, Object value) {
+            values.get(column).put(node == null ? JSONObject.NULL : node);
+            statistics.get(column).accept(value);
+            if (column.equals(ROWS)) {
+                size++;
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void flush(Map<String, ColumnWriter> writers) throws IOException {
+            if (size == 0) {
+                return;
+            }
+            for (var entry : writers.entrySet()) {
+                entry.getValue().write(values.get(entry.getKey()), statistics.get(entry.getKey()), size);
+                values.put(entry.getKey(), new JSONArray());
+                statistics.put(entry.getKey(), new FieldStatistics());
+            }
+            size = 0;
+        }
+    }
+
+    private static final class ColumnWriter implements AutoCloseable {
+        private final OutputStream column;
+        private final BufferedWriter statistics;
+        private long offset;
+
+        private ColumnWriter(Path directory, String name) throws IOException {
+            column = Files.newOutputStream(directory.resolve(name + COLUMN));
+            statistics = Files.newBufferedWriter(directory.resolve(name + STATISTICS));
+        }
+
+        private void write(JSONArray values, FieldStatistics fieldStatistics, int rows) throws IOException {
+            byte[] bytes = values.toString().getBytes(StandardCharsets.UTF_8);
+            column.write(bytes);
+            statistics.write(fieldStatistics.toJson()
+                    .put(OFFSET, offset)
+                    .put(LENGTH, bytes.length)
+                    .put(ROW_COUNT, rows)
+                    .toString());
+            statistics.newLine();
+            offset += bytes.length;
+        }
+
+        @Override
+        public void close() {
+            try {
+                column.close();
+                statistics.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
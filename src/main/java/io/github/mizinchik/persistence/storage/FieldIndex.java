@@ -0,0 +1,260 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.deserialization.NumberTokener;
+import io.github.mizinchik.persistence.filtering.PrefixPredicate;
+import io.github.mizinchik.persistence.filtering.RangePredicate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.json.JSONException;
+import static java.util.UUID.randomUUID;
+
+public final class FieldIndex {
+    public static final String DIRECTORY = "indexes";
+    private static final String EXTENSION = ".bpt";
+    private static final String TEMPORARY = ".tmp";
+    private static final String DIRTY = "dirty";
+    private static final int MIN_STALE = 64;
+    private static final Comparator<byte[][]> ENTRY_ORDER = Comparator
+            .<byte[][], byte[]>comparing(entry -> entry[0], Arrays::compareUnsigned)
+            .thenComparing(entry -> entry[1], Arrays::compareUnsigned);
+    private static final Map<Path, Map<String, FieldIndex>> REGISTRY = new ConcurrentHashMap<>();
+    private final Class<?> clazz;
+    private final String field;
+    private final IndexKey key;
+    private final Path file;
+    private BPlusTree tree;
+
+    private FieldIndex(Class<?> clazz, Path classDirectory, String field) {
+        this.clazz = clazz;
+        this.field = field;
+        try {
+            key = IndexKey.of(clazz.getDeclaredField(field).getType());
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("No field " + field + " in " + clazz.getName(), e);
+        }
+        file = classDirectory.resolve(DIRECTORY).resolve(field + EXTENSION);
+    }
+
+    public static FieldIndex create(Class<?> clazz, Path classDirectory, String field, Collection<String> files) {
+        FieldIndex index = new FieldIndex(clazz, classDirectory, field);
+        index.rebuild(classDirectory, files);
+        Map<String, FieldIndex> indexes = REGISTRY.compute(key(classDirectory), (path, current) -> {
+            if (current != null && !isStale(current)) {
+                return current;
+            }
+            if (current != null) {
+                current.values().forEach(FieldIndex::close);
+            }
+            return new ConcurrentHashMap<>();
+        });
+        FieldIndex previous = indexes.put(field, index);
+        if (previous != null && previous != index) {
+            previous.close();
+        }
+        return index;
+    }
+
+    public static Map<String, FieldIndex> of(Class<?> clazz, Path classDirectory) {
+        return REGISTRY.compute(key(classDirectory), (path, current) -> {
+            if (current != null && !isStale(current)) {
+                return current;
+            }
+            if (current != null) {
+                current.values().forEach(FieldIndex::close);
+            }
+            return load(clazz, classDirectory);
+        });
+    }
+
+    public synchronized void insert(Map<String, String> inserts) {
+        for (var insert : inserts.entrySet()) {
+            byte[] encoded = encode(insert.getValue());
+            if (encoded != null) {
+                tree.insert(encoded, insert.getKey().getBytes(StandardCharsets.UTF_8));
+                if (IndexKey.isTruncated(encoded)) {
+                    tree.markLossy();
+                }
+            }
+        }
+    }
+
+    public synchronized void retire(int count, Path classDirectory, Collection<String> files) {
+        tree.retire(count);
+        if (tree.stale() >= MIN_STALE && tree.stale() * 2 > tree.entries()) {
+            rebuild(classDirectory, files);
+        }
+    }
+
+    public synchronized void flush() {
+        tree.flush();
+    }
+
+    public synchronized Optional<Set<String>> candidates(Predicate<?> predicate) {
+        List<byte[]> values;
+        if (predicate instanceof RangePredicate range && !range.isNegated()) {
+            byte[] lower = range.getLower() == null ? null : key.encode(range.getLower(), true);
+            byte[] upper = range.getUpper() == null ? null : key.encode(range.getUpper(), false);
+            if (range.getLower() != null && lower == null || range.getUpper() != null && upper == null) {
+                return Optional.empty();
+            }
+            values = tree.range(lower, upper, false);
+        } else if (predicate instanceof PrefixPredicate prefix && key == IndexKey.TEXT) {
+            byte[] encoded = key.encode(prefix.getPrefix());
+            values = tree.range(encoded, encoded, true);
+        } else {
+            return Optional.empty();
+        }
+        Set<String> files = new HashSet<>();
+        for (byte[] value : values) {
+            files.add(new String(value, StandardCharsets.UTF_8));
+        }
+        return Optional.of(files);
+    }
+
+    public synchronized Optional<List<String>> ordered(boolean ascending, int limit) {
+        if (tree.isLossy()) {
+            return Optional.empty();
+        }
+        List<String> files = new ArrayList<>();
+        for (byte[] value : tree.ordered(ascending, limit)) {
+            files.add(new String(value, StandardCharsets.UTF_8));
+        }
+        return Optional.of(files);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    static void invalidate(Path classDirectory) {
+        Path directory = classDirectory.resolve(DIRECTORY);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            Files.writeString(directory.resolve(DIRTY), "");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, FieldIndex> indexes = REGISTRY.remove(key(classDirectory));
+        if (indexes != null) {
+            indexes.values().forEach(FieldIndex::close);
+        }
+    }
+
+    private static Map<String, FieldIndex> load(Class<?> clazz, Path classDirectory) {
+        Map<String, FieldIndex> indexes = new ConcurrentHashMap<>();
+        Path directory = classDirectory.resolve(DIRECTORY);
+        boolean dirty = Files.exists(directory.resolve(DIRTY));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                FieldIndex index = new FieldIndex(clazz, classDirectory, name.substring(0, name.length()
+                        - EXTENSION.length()));
+                if (dirty) {
+                    try (Versions.Snapshot snapshot = Versions.pin(classDirectory)) {
+                        index.rebuild(classDirectory, snapshot.files());
+                    }
+                } else {
+                    index.tree = BPlusTree.open(path);
+                }
+                indexes.put(index.field, index);
+            }
+            Files.deleteIfExists(directory.resolve(DIRTY));
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return indexes;
+    }
+
+    private synchronized void rebuild(Path classDirectory, Collection<String> files) {
+        List<byte[][]> entries = new ArrayList<>();
+        boolean lossy = false;
+        for (String name : files) {
+            byte[] encoded = encode(read(classDirectory.resolve(name)));
+            if (encoded != null) {
+                entries.add(new byte[][]{encoded, name.getBytes(StandardCharsets.UTF_8)});
+                lossy |= IndexKey.isTruncated(encoded);
+            }
+        }
+        entries.sort(ENTRY_ORDER);
+        Path temporary = file.resolveSibling(randomUUID() + TEMPORARY);
+        try {
+            Files.createDirectories(file.getParent());
+            BPlusTree built = BPlusTree.bulkLoad(temporary, entries.iterator());
+            if (lossy) {
+                built.markLossy();
+            }
+            built.close();
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        close();
+        tree = BPlusTree.open(file);
+    }
+
+    private byte[] encode(String json) {
+        if (json == null) {
+            return null;
+        }
+        Object value;
+        try {
+            value = new JsonDeserializer<>(NumberTokener.parseObject(json), clazz)
+                    .getRelevantFields(Set.of(field))
+                    .get(field);
+        } catch (JSONException e) {
+            return null;
+        }
+        return value == null ? null : key.encode(value);
+    }
+
+    private static String read(Path path) {
+        try {
+            return Files.readString(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void close() {
+        if (tree != null) {
+            tree.close();
+            tree = null;
+        }
+    }
+
+    private static boolean isStale(Map<String, FieldIndex> indexes) {
+        for (FieldIndex index : indexes.values()) {
+            if (!Files.exists(index.file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path key(Path classDirectory) {
+        return classDirectory.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.mizinchik.persistence.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+enum IndexKey {
+    INTEGRAL(int.class, long.class, short.class, byte.class, Integer.class, Long.class, Short.class, Byte.class) {
+        @Override
+        byte[] encode(Object value, boolean lower) {
+            return integral(value, lower);
+        }
+    },
+    FLOATING(double.class, float.class, Double.class, Float.class) {
+        @Override
+        byte[] encode(Object value, boolean lower) {
+            return value instanceof Number number ? floating(number.doubleValue()) : null;
+        }
+    },
+    TEXT(String.class, char.class, Character.class) {
+        @Override
+        byte[] encode(Object value, boolean lower) {
+            return value instanceof String || value instanceof Character ? text(value.toString()) : null;
+        }
+    },
+    BOOLEAN(boolean.class, Boolean.class) {
+        @Override
+        byte[] encode(Object value, boolean lower) {
+            return value instanceof Boolean bool ? new byte[]{(byte) (bool ? 1 : 0)} : null;
+        }
+    };
+
+    static final int MAX_LENGTH = 1024;
+    private final Set<Class<?>> types;
+
+    IndexKey(Class<?>... types) {
+        this.types = Set.of(types);
+    }
+
+    static IndexKey of(Class<?> type) {
+        for (IndexKey key : values()) {
+            if (key.types.contains(type)) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Fields of type " + type.getName() + " cannot be indexed");
+    }
+
+    byte[] encode(Object value) {
+        return encode(value, true);
+    }
+
+    abstract byte[] encode(Object value, boolean lower);
+
+    static boolean isTruncated(byte[] key) {
+        return key.length == MAX_LENGTH;
+    }
+
+    private static byte[] integral(Object value, boolean lower) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ordered(((Number) value).longValue());
+        }
+        if (value instanceof Number number && !Double.isNaN(number.doubleValue())) {
+            double bound = lower ? Math.ceil(number.doubleValue()) : Math.floor(number.doubleValue());
+            return ordered((long) bound);
+        }
+        return null;
+    }
+
+    private static byte[] ordered(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value ^ Long.MIN_VALUE).array();
+    }
+
+    private static byte[] floating(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return ByteBuffer.allocate(Long.BYTES).putLong(bits < 0 ? ~bits : bits ^ Long.MIN_VALUE).array();
+    }
+
+    private static byte[] text(String value) {
+        int length = Math.min(value.length(), MAX_LENGTH / Character.BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate(length * Character.BYTES);
+        for (int i = 0; i < length; i++) {
+            buffer.putChar(value.charAt(i));
+        }
+        return buffer.array();
+    }
+}
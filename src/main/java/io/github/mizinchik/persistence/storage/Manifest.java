@@ -0,0 +1,173 @@
+package io.github.mizinchik.persistence.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import static java.util.UUID.randomUUID;
+
+final class Manifest {
+    static final String FILE = "MANIFEST";
+    private static final String TEMPORARY = ".tmp";
+    private static final char ADDED = '+';
+    static final long UNKNOWN = -1;
+    private static final char REMOVED = '-';
+    private static final char SEQUENCE = '#';
+    private static final int MIN_COMPACTION = 1024;
+    private static final int TAIL = 32;
+
+    private Manifest() {
+    }
+
+    static Loaded read(Path classDirectory) {
+        Map<String, Long> files = new HashMap<>();
+        int lines = 0;
+        long sequence = 0;
+        try (BufferedReader reader = Files.newBufferedReader(classDirectory.resolve(FILE))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                long marked = sequence(line);
+                if (marked == UNKNOWN) {
+                    apply(files, line);
+                } else {
+                    sequence = marked;
+                }
+                lines++;
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Loaded(files, lines, sequence);
+    }
+
+    static long sequence(Path classDirectory) {
+        try (FileChannel channel = FileChannel.open(classDirectory.resolve(FILE), StandardOpenOption.READ)) {
+            return sequence(channel);
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long append(Path classDirectory, Map<String, Long> added, Collection<String> removed) {
+        Path file = classDirectory.resolve(FILE);
+        if (!Files.exists(file) || added.isEmpty() && removed.isEmpty()) {
+            return UNKNOWN;
+        }
+        StringBuilder lines = new StringBuilder();
+        added.forEach((name, size) -> lines.append(ADDED).append(name).append(' ').append(size).append('\n'));
+        removed.forEach(name -> lines.append(REMOVED).append(name).append('\n'));
+        long sequence;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long last = sequence(channel);
+            sequence = (last == UNKNOWN ? read(classDirectory).sequence() : last) + 1;
+            lines.append(SEQUENCE).append(sequence).append('\n');
+            ByteBuffer end = ByteBuffer.allocate(1);
+            if (channel.size() > 0 && channel.read(end, channel.size() - 1) == 1 && end.get(0) != '\n') {
+                lines.insert(0, '\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            long position = channel.size();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sequence;
+    }
+
+    static void write(Path classDirectory, Map<String, Long> files, long sequence) {
+        StringBuilder lines = new StringBuilder();
+        files.forEach((name, size) -> lines.append(ADDED).append(name).append(' ').append(size).append('\n'));
+        lines.append(SEQUENCE).append(sequence).append('\n');
+        Path temporary = classDirectory.resolve(randomUUID() + TEMPORARY);
+        try {
+            Files.writeString(temporary, lines);
+            Files.move(temporary, classDirectory.resolve(FILE), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static boolean needsCompaction(int lines, int files) {
+        return lines > MIN_COMPACTION && lines > 2 * files;
+    }
+
+    static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long sequence(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer tail = ByteBuffer.allocate((int) Math.min(size, TAIL));
+        long position = size - tail.capacity();
+        int read = 0;
+        while (tail.hasRemaining() && read >= 0) {
+            read = channel.read(tail, position + tail.position());
+        }
+        String text = new String(tail.array(), 0, tail.position(), StandardCharsets.UTF_8);
+        int end = text.length() - 1;
+        if (end <= 0 || text.charAt(end) != '\n') {
+            return UNKNOWN;
+        }
+        int start = text.lastIndexOf('\n', end - 1) + 1;
+        if (start == 0 && position > 0) {
+            return UNKNOWN;
+        }
+        return sequence(text.substring(start, end));
+    }
+
+    private static long sequence(String line) {
+        if (line.isEmpty() || line.charAt(0) != SEQUENCE) {
+            return UNKNOWN;
+        }
+        try {
+            return Long.parseLong(line.substring(1));
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private static void apply(Map<String, Long> files, String line) {
+        char kind = line.isEmpty() ? 0 : line.charAt(0);
+        if (kind == REMOVED) {
+            files.remove(line.substring(1));
+        } else if (kind == ADDED) {
+            add(files, line);
+        }
+    }
+
+    private static void add(Map<String, Long> files, String line) {
+        int separator = line.lastIndexOf(' ');
+        if (separator >= 0) {
+            try {
+                files.put(line.substring(1, separator), Long.parseLong(line.substring(separator + 1)));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+    }
+
+    record Loaded(Map<String, Long> files, int lines, long sequence) {
+    }
+}
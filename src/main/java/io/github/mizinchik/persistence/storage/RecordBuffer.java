@@ -0,0 +1,266 @@
+package io.github.mizinchik.persistence.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public final class RecordBuffer {
+    private static final int MEBIBYTE = 1024 * 1024;
+    public static final long DEFAULT_CAPACITY = 64L * MEBIBYTE;
+    private static final int CHUNK_SIZE = MEBIBYTE;
+    private static final int POOLED_CHUNKS = 16;
+    private static final int INITIAL_SLOTS = 64;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final String SPILL_PREFIX = "jvivo-spill";
+    private static final String SPILL_SUFFIX = ".tmp";
+    private static final Deque<ByteBuffer> POOL = new ArrayDeque<>();
+    private final AtomicLong available;
+    private final List<ByteBuffer> chunks;
+    private long[] locations;
+    private int[] hashes;
+    private Path spill;
+    private FileChannel spillChannel;
+    private long spillSize;
+    private long reserved;
+    private long payload;
+    private int size;
+    private int spilled;
+
+    public RecordBuffer(AtomicLong available) {
+        this.available = available;
+        chunks = new ArrayList<>();
+        clearLocations();
+    }
+
+    public synchronized void add(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        int hash = json.hashCode();
+        int mask = locations.length - 1;
+        int slot = slot(hash, mask);
+        for (; locations[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && equalAt(locations[slot], bytes)) {
+                return;
+            }
+        }
+        locations[slot] = store(bytes);
+        hashes[slot] = hash;
+        payload += bytes.length;
+        size++;
+        if (size * 2 > locations.length) {
+            grow();
+        }
+    }
+
+    public synchronized void addAll(RecordBuffer other) {
+        other.forEach(this::add);
+        other.release();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long bytes() {
+        return payload;
+    }
+
+    public synchronized int spilled() {
+        return spilled;
+    }
+
+    public synchronized long offHeapBytes() {
+        return reserved;
+    }
+
+    public synchronized void forEach(Consumer<String> action) {
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer view = chunk.duplicate().flip();
+            while (view.hasRemaining()) {
+                action.accept(read(view));
+            }
+        }
+        if (spillChannel == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(spill, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            long position = 0;
+            while (readFully(channel, header.clear(), position)) {
+                ByteBuffer body = ByteBuffer.allocate(header.flip().getInt());
+                readFully(channel, body, position + Integer.BYTES);
+                position += Integer.BYTES + body.capacity();
+                action.accept(new String(body.array(), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized List<String> records() {
+        List<String> records = new ArrayList<>(size);
+        forEach(records::add);
+        return records;
+    }
+
+    public synchronized void release() {
+        for (ByteBuffer chunk : chunks) {
+            if (chunk.capacity() == CHUNK_SIZE) {
+                synchronized (POOL) {
+                    if (POOL.size() < POOLED_CHUNKS) {
+                        POOL.push(chunk.clear());
+                    }
+                }
+            }
+        }
+        chunks.clear();
+        clearLocations();
+        available.addAndGet(reserved);
+        reserved = 0;
+        payload = 0;
+        size = 0;
+        spilled = 0;
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+                Files.deleteIfExists(spill);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spillChannel = null;
+            spill = null;
+            spillSize = 0;
+        }
+    }
+
+    private long store(byte[] bytes) {
+        int length = Integer.BYTES + bytes.length;
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.getLast();
+        if (chunk == null || chunk.remaining() < length) {
+            chunk = reserve(Math.max(CHUNK_SIZE, length));
+        }
+        long location;
+        if (chunk == null) {
+            location = -1 - spillSize;
+            spill(bytes);
+        } else {
+            location = (long) (chunks.size() - 1) << Integer.SIZE | chunk.position();
+            chunk.putInt(bytes.length).put(bytes);
+        }
+        return location;
+    }
+
+    private ByteBuffer reserve(int capacity) {
+        if (available.addAndGet(-capacity) < 0) {
+            available.addAndGet(capacity);
+            return null;
+        }
+        ByteBuffer chunk = null;
+        if (capacity == CHUNK_SIZE) {
+            synchronized (POOL) {
+                chunk = POOL.poll();
+            }
+        }
+        if (chunk == null) {
+            chunk = ByteBuffer.allocateDirect(capacity);
+        }
+        chunks.add(chunk);
+        reserved += capacity;
+        return chunk;
+    }
+
+    private void spill(byte[] bytes) {
+        try {
+            if (spillChannel == null) {
+                spill = Files.createTempFile(SPILL_PREFIX, SPILL_SUFFIX);
+                spillChannel = FileChannel.open(spill, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes);
+            entry.flip();
+            while (entry.hasRemaining()) {
+                spillSize += spillChannel.write(entry, spillSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        spilled++;
+    }
+
+    private void clearLocations() {
+        locations = new long[INITIAL_SLOTS];
+        hashes = new int[INITIAL_SLOTS];
+        Arrays.fill(locations, EMPTY);
+    }
+
+    private void grow() {
+        long[] oldLocations = locations;
+        int[] oldHashes = hashes;
+        locations = new long[oldLocations.length * 2];
+        hashes = new int[oldLocations.length * 2];
+        Arrays.fill(locations, EMPTY);
+        int mask = locations.length - 1;
+        for (int i = 0; i < oldLocations.length; i++) {
+            if (oldLocations[i] != EMPTY) {
+                int slot = slot(oldHashes[i], mask);
+                while (locations[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                locations[slot] = oldLocations[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int slot(int hash, int mask) {
+        return (hash ^ hash >>> (Integer.SIZE / 2)) & mask;
+    }
+
+    private boolean equalAt(long location, byte[] bytes) {
+        if (location < 0) {
+            return Arrays.equals(bytes, readSpilled(-1 - location));
+        }
+        ByteBuffer chunk = chunks.get((int) (location >>> Integer.SIZE));
+        int offset = (int) location;
+        return chunk.getInt(offset) == bytes.length
+                && chunk.slice(offset + Integer.BYTES, bytes.length).equals(ByteBuffer.wrap(bytes));
+    }
+
+    private byte[] readSpilled(long position) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            readFully(spillChannel, header, position);
+            ByteBuffer body = ByteBuffer.allocate(header.flip().getInt());
+            readFully(spillChannel, body, position + Integer.BYTES);
+            return body.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+            read = channel.read(buffer, offset);
+            offset += Math.max(read, 0);
+        }
+        return !buffer.hasRemaining();
+    }
+
+    private static String read(ByteBuffer view) {
+        byte[] bytes = new byte[view.getInt()];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.annotations.Transient;
+import io.github.mizinchik.persistence.codec.Codecs;
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import org.json.JSONObject;
+
+final class StoredFields {
+    private StoredFields() {
+    }
+
+    static List<String> of(Class<?> clazz) {
+        return Arrays.stream(clazz.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers())
+                        && !Modifier.isTransient(field.getModifiers())
+                        && !field.isAnnotationPresent(Transient.class))
+                .map(Field::getName)
+                .toList();
+    }
+
+    static Object decode(Class<?> clazz, String field, Object node) {
+        return new JsonDeserializer<>(Codecs.stamp(clazz, new JSONObject().put(field, node)), clazz).getField(field);
+    }
+}
@@ -0,0 +1,342 @@
+package io.github.mizinchik.persistence.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+public final class Versions {
+    private static final String GLOB = "*.jvivo";
+    private static final Map<Path, Versions> REGISTRY = new ConcurrentHashMap<>();
+    private static final Map<Path, Idle> IDLE = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Versions> CLEARED = new ReferenceQueue<>();
+    private final Path classDirectory;
+    private final ReentrantLock writer;
+    private final TreeMap<Long, Integer> pins;
+    private final List<Retired> retired;
+    private volatile Version current;
+    private long sequence;
+    private int manifestLines;
+    private long reclaimed;
+    private int users;
+
+    private Versions(Path classDirectory) {
+        this.classDirectory = classDirectory;
+        writer = new ReentrantLock();
+        pins = new TreeMap<>();
+        retired = new ArrayList<>();
+        current = new Version(0, Collections.unmodifiableMap(load()));
+        ColumnStore.deleteRecursively(classDirectory.resolve(ColumnStore.DIRECTORY));
+    }
+
+    public static Snapshot pin(Path classDirectory) {
+        Versions versions = acquire(classDirectory);
+        try {
+            return versions.pin();
+        } catch (RuntimeException e) {
+            versions.release();
+            throw e;
+        }
+    }
+
+    public static Versions lock(Path classDirectory) {
+        Versions versions = acquire(classDirectory);
+        versions.writer.lock();
+        try {
+            versions.refresh();
+        } catch (RuntimeException e) {
+            versions.unlock();
+            throw e;
+        }
+        return versions;
+    }
+
+    public static void update(Path classDirectory, Function<Set<String>, Change> change) {
+        Versions versions = lock(classDirectory);
+        try {
+            versions.publish(change.apply(versions.files()));
+        } finally {
+            versions.unlock();
+        }
+    }
+
+    public static boolean isSettled(Path classDirectory) {
+        Versions versions = REGISTRY.get(key(classDirectory));
+        return versions == null || versions.isSettled();
+    }
+
+    static boolean isRegistered(Path classDirectory) {
+        return REGISTRY.containsKey(key(classDirectory));
+    }
+
+    private static Path key(Path classDirectory) {
+        return classDirectory.toAbsolutePath().normalize();
+    }
+
+    private static Versions acquire(Path classDirectory) {
+        for (Reference<? extends Versions> cleared = CLEARED.poll(); cleared != null; cleared = CLEARED.poll()) {
+            IDLE.remove(((Idle) cleared).path, cleared);
+        }
+        return REGISTRY.compute(key(classDirectory), (path, registered) -> {
+            Versions versions = registered;
+            if (versions == null) {
+                Idle idle = IDLE.remove(path);
+                versions = idle == null ? null : idle.get();
+            }
+            if (versions == null) {
+                versions = new Versions(path);
+            }
+            versions.users++;
+            return versions;
+        });
+    }
+
+    private void release() {
+        REGISTRY.computeIfPresent(classDirectory, (path, registered) -> {
+            registered.users--;
+            if (registered.users > 0) {
+                return registered;
+            }
+            IDLE.put(path, new Idle(path, registered));
+            return null;
+        });
+    }
+
+    private Snapshot pin() {
+        if (!writer.isHeldByCurrentThread() && writer.tryLock()) {
+            try {
+                refresh();
+            } finally {
+                writer.unlock();
+            }
+        }
+        synchronized (this) {
+            Version version = current;
+            pins.merge(version.number(), 1, Integer::sum);
+            return new Snapshot(version);
+        }
+    }
+
+    public void unlock() {
+        writer.unlock();
+        release();
+    }
+
+    public Set<String> files() {
+        return current.files();
+    }
+
+    public void publish(Change change) {
+        if (!writer.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Versions are published under the writer lock");
+        }
+        if (change.added().isEmpty() && change.removed().isEmpty()) {
+            return;
+        }
+        Version version = current;
+        Map<String, Long> files = new HashMap<>(version.sizes());
+        Map<String, Long> added = new HashMap<>();
+        for (String file : change.added()) {
+            added.put(file, Manifest.size(classDirectory.resolve(file)));
+        }
+        files.putAll(added);
+        files.keySet().removeAll(change.removed());
+        long appended = Manifest.append(classDirectory, added, change.removed());
+        if (appended != Manifest.UNKNOWN) {
+            sequence = appended;
+            manifestLines += added.size() + change.removed().size() + 1;
+        }
+        if (manifestLines == 0 || Manifest.needsCompaction(manifestLines, files.size())) {
+            sequence++;
+            Manifest.write(classDirectory, files, sequence);
+            manifestLines = files.size() + 1;
+        }
+        long number = version.number() + 1;
+        synchronized (this) {
+            current = new Version(number, Collections.unmodifiableMap(files));
+            for (String file : change.removed()) {
+                retired.add(new Retired(number, file));
+            }
+        }
+        reclaim();
+    }
+
+    private synchronized boolean isSettled() {
+        return retired.isEmpty();
+    }
+
+    private void refresh() {
+        if (Manifest.sequence(classDirectory) == sequence) {
+            return;
+        }
+        Map<String, Long> files = load();
+        synchronized (this) {
+            for (Retired file : retired) {
+                files.remove(file.name());
+            }
+            if (!files.keySet().equals(current.files())) {
+                current = new Version(current.number() + 1, Collections.unmodifiableMap(files));
+            }
+        }
+    }
+
+    private Map<String, Long> load() {
+        Manifest.Loaded manifest = Manifest.read(classDirectory);
+        if (manifest != null) {
+            manifestLines = manifest.lines();
+            sequence = manifest.sequence();
+            if (Manifest.sequence(classDirectory) == Manifest.UNKNOWN) {
+                sequence++;
+                Manifest.write(classDirectory, manifest.files(), sequence);
+                manifestLines = manifest.files().size() + 1;
+            }
+            return manifest.files();
+        }
+        Map<String, Long> files = list();
+        manifestLines = 0;
+        sequence = 0;
+        if (!files.isEmpty()) {
+            sequence = 1;
+            Manifest.write(classDirectory, files, sequence);
+            manifestLines = files.size() + 1;
+        }
+        return files;
+    }
+
+    private Map<String, Long> list() {
+        Map<String, Long> files = new HashMap<>();
+        try (DirectoryStream<Path> persisted = Files.newDirectoryStream(classDirectory, GLOB)) {
+            for (Path file : persisted) {
+                files.put(file.getFileName().toString(), Manifest.size(file));
+            }
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return files;
+    }
+
+    private void unpin(long version) {
+        synchronized (this) {
+            pins.computeIfPresent(version, (number, count) -> count == 1 ? null : count - 1);
+        }
+        try {
+            reclaim();
+        } finally {
+            release();
+        }
+    }
+
+    private void reclaim() {
+        List<String> files = new ArrayList<>();
+        long oldest;
+        boolean advanced;
+        synchronized (this) {
+            oldest = pins.isEmpty() ? current.number() : pins.firstKey();
+            advanced = oldest > reclaimed;
+            reclaimed = Math.max(reclaimed, oldest);
+            for (Iterator<Retired> iterator = retired.iterator(); iterator.hasNext();) {
+                Retired file = iterator.next();
+                if (file.version() <= oldest) {
+                    files.add(file.name());
+                    iterator.remove();
+                }
+            }
+        }
+        try {
+            for (String file : files) {
+                Files.deleteIfExists(classDirectory.resolve(file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!files.isEmpty()) {
+            ZoneMap.prune(classDirectory);
+        }
+        if (advanced) {
+            ColumnStore.deleteOlderThan(classDirectory, oldest);
+        }
+    }
+
+    public record Change(Set<String> added, Set<String> removed) {
+    }
+
+    private record Version(long number, Map<String, Long> sizes) {
+        private Set<String> files() {
+            return sizes.keySet();
+        }
+    }
+
+    private record Retired(long version, String name) {
+    }
+
+    private static final class Idle extends SoftReference<Versions> {
+        private final Path path;
+
+        private Idle(Path path, Versions versions) {
+            super(versions, CLEARED);
+            this.path = path;
+        }
+    }
+
+    public final class Snapshot implements AutoCloseable {
+        private final Version version;
+        private List<Path> paths;
+        private boolean closed;
+
+        private Snapshot(Version version) {
+            this.version = version;
+        }
+
+        public long version() {
+            return version.number();
+        }
+
+        public Set<String> files() {
+            return version.files();
+        }
+
+        public List<Path> paths() {
+            if (paths == null) {
+                paths = version.files().stream().sorted().map(classDirectory::resolve).toList();
+            }
+            return paths;
+        }
+
+        public Map<String, Long> sizes() {
+            return version.sizes();
+        }
+
+        public long bytes() {
+            long bytes = 0;
+            for (long size : version.sizes().values()) {
+                bytes += size;
+            }
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                unpin(version.number());
+            }
+        }
+    }
+}
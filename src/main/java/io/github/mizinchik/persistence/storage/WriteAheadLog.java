@@ -0,0 +1,252 @@
+package io.github.mizinchik.persistence.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public final class WriteAheadLog {
+    public static final String FILE = "wal";
+    public static final long NONE = -1;
+    private static final int KIBIBYTE = 1024;
+    private static final int CHECKPOINT_SIZE = KIBIBYTE * KIBIBYTE;
+    private static final int HEXADECIMAL = 16;
+    private static final String INSERTS = "inserts";
+    private static final String DELETES = "deletes";
+    private static final String ABORTED = "@aborted";
+    private static final String CLASSES = "classes";
+    private static final Map<Path, WriteAheadLog> REGISTRY = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final Path file;
+    private final Set<Path> unsynced;
+    private final Set<Path> touched;
+    private final Set<Long> open;
+    private long size;
+
+    private WriteAheadLog(Path directory) {
+        this.directory = directory;
+        this.file = directory.resolve(FILE);
+        unsynced = new HashSet<>();
+        touched = new HashSet<>();
+        open = new HashSet<>();
+        replay();
+    }
+
+    public static WriteAheadLog of(Path directory) {
+        return REGISTRY.computeIfAbsent(directory.toAbsolutePath().normalize(), WriteAheadLog::new);
+    }
+
+    public synchronized long append(Map<String, Batch> batches) {
+        if (batches.isEmpty()) {
+            return NONE;
+        }
+        JSONObject entry = new JSONObject();
+        batches.forEach((clazz, batch) -> entry.put(clazz, new JSONObject()
+                .put(INSERTS, new JSONObject(batch.inserts()))
+                .put(DELETES, new JSONArray(batch.deletes()))));
+        long position = size;
+        write(entry);
+        open.add(position);
+        return position;
+    }
+
+    public synchronized void applied(long entry, Collection<Path> written, Collection<Path> classDirectories) {
+        open.remove(entry);
+        unsynced.addAll(written);
+        touched.addAll(classDirectories);
+        if (size >= CHECKPOINT_SIZE) {
+            checkpoint();
+        }
+    }
+
+    public synchronized void aborted(long entry, Collection<String> classes, Collection<Path> written,
+                                     Collection<Path> classDirectories) {
+        if (!open.remove(entry)) {
+            return;
+        }
+        unsynced.addAll(written);
+        touched.addAll(classDirectories);
+        if (!classes.isEmpty()) {
+            write(new JSONObject().put(ABORTED, entry).put(CLASSES, new JSONArray(classes)));
+        }
+    }
+
+    public synchronized boolean checkpoint() {
+        if (!open.isEmpty()) {
+            return false;
+        }
+        for (Path classDirectory : touched) {
+            if (!Versions.isSettled(classDirectory)) {
+                return false;
+            }
+        }
+        for (Path written : unsynced) {
+            force(written);
+        }
+        for (Path classDirectory : touched) {
+            force(classDirectory.resolve(Manifest.FILE));
+        }
+        truncate();
+        unsynced.clear();
+        touched.clear();
+        return true;
+    }
+
+    long size() {
+        return size;
+    }
+
+    private void write(JSONObject entry) {
+        String json = entry.toString();
+        CRC32 checksum = new CRC32();
+        checksum.update(json.getBytes(StandardCharsets.UTF_8));
+        byte[] line = (Long.toHexString(checksum.getValue()) + ' ' + json + '\n').getBytes(StandardCharsets.UTF_8);
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size += line.length;
+    }
+
+    private void replay() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Set<Path> written = new HashSet<>();
+        Set<Path> changed = new HashSet<>();
+        try {
+            for (JSONObject entry : committed()) {
+                for (String clazz : entry.keySet()) {
+                    Path classDirectory = directory.resolve(clazz);
+                    if (apply(classDirectory, entry.getJSONObject(clazz), written)) {
+                        changed.add(classDirectory);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Path path : written) {
+            force(path);
+        }
+        truncate();
+        for (Path classDirectory : changed) {
+            FieldIndex.invalidate(classDirectory);
+        }
+    }
+
+    private Collection<JSONObject> committed() throws IOException {
+        Map<Long, JSONObject> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            long position = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                JSONObject entry = parse(line);
+                if (entry == null) {
+                    break;
+                }
+                if (entry.has(ABORTED)) {
+                    JSONObject aborted = entries.getOrDefault(entry.getLong(ABORTED), new JSONObject());
+                    entry.getJSONArray(CLASSES).forEach(clazz -> aborted.remove((String) clazz));
+                } else {
+                    entries.put(position, entry);
+                }
+                position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+        }
+        return entries.values();
+    }
+
+    private static boolean apply(Path classDirectory, JSONObject batch, Set<Path> written) throws IOException {
+        boolean changed = false;
+        Files.createDirectories(classDirectory);
+        JSONObject inserts = batch.getJSONObject(INSERTS);
+        Map<String, Long> added = new HashMap<>();
+        for (String name : inserts.keySet()) {
+            Path path = classDirectory.resolve(name);
+            String json = inserts.getString(name);
+            if (!Files.exists(path) || !Files.readString(path).equals(json)) {
+                Files.writeString(path, json);
+                changed = true;
+            }
+            added.put(name, Files.size(path));
+            written.add(path);
+        }
+        Set<String> removed = new HashSet<>();
+        for (Object name : batch.getJSONArray(DELETES)) {
+            Path path = classDirectory.resolve((String) name);
+            changed |= Files.deleteIfExists(path);
+            added.remove((String) name);
+            removed.add((String) name);
+            written.remove(path);
+        }
+        Manifest.append(classDirectory, added, removed);
+        return changed;
+    }
+
+    private static JSONObject parse(String line) {
+        int separator = line.indexOf(' ');
+        if (separator < 0) {
+            return null;
+        }
+        String json = line.substring(separator + 1);
+        CRC32 checksum = new CRC32();
+        checksum.update(json.getBytes(StandardCharsets.UTF_8));
+        try {
+            if (Long.parseLong(line.substring(0, separator), HEXADECIMAL) != checksum.getValue()) {
+                return null;
+            }
+            return new JSONObject(json);
+        } catch (NumberFormatException | JSONException e) {
+            return null;
+        }
+    }
+
+    private static void force(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void truncate() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            channel.force(false);
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size = 0;
+    }
+
+    public record Batch(Map<String, String> inserts, Set<String> deletes) {
+    }
+}
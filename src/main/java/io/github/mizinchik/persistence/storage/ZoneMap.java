@@ -0,0 +1,134 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.deserialization.NumberTokener;
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.FieldStatistics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import static java.util.UUID.randomUUID;
+
+public class ZoneMap {
+    public static final String DIRECTORY = "zones";
+    private static final String EXTENSION = ".zone";
+    private static final String TEMPORARY = ".tmp";
+    private static final String GLOB = "*.zone";
+    private static final String FILES = "files";
+    private static final String FIELDS = "fields";
+    private final Class<?> clazz;
+    private final Path directory;
+    private final List<String> storedFields;
+
+    public ZoneMap(Class<?> clazz, Path classDirectory) {
+        this.clazz = clazz;
+        this.directory = classDirectory.resolve(DIRECTORY);
+        this.storedFields = StoredFields.of(clazz);
+    }
+
+    public void write(Map<String, String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, FieldStatistics> statistics = new LinkedHashMap<>();
+        for (String field : storedFields) {
+            statistics.put(field, new FieldStatistics(batch.size()));
+        }
+        JSONArray files = new JSONArray();
+        for (var entry : batch.entrySet()) {
+            files.put(entry.getKey());
+            Map<String, Object> values = new JsonDeserializer<>(NumberTokener.parseObject(entry.getValue()), clazz)
+                    .getRelevantFields(statistics.keySet());
+            for (var field : statistics.entrySet()) {
+                field.getValue().accept(values.get(field.getKey()));
+            }
+        }
+        JSONObject zone = new JSONObject();
+        JSONObject fieldStatistics = new JSONObject();
+        statistics.forEach((field, value) -> fieldStatistics.put(field, value.toJson()));
+        zone.put(FILES, files);
+        zone.put(FIELDS, fieldStatistics);
+        String name = randomUUID().toString();
+        try {
+            Files.createDirectories(directory);
+            Path temporary = directory.resolve(name + TEMPORARY);
+            Files.writeString(temporary, zone.toString());
+            Files.move(temporary, directory.resolve(name + EXTENSION), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Set<String> excluded(AttributeFilter filter) {
+        Set<String> excluded = new HashSet<>();
+        Set<String> necessaryFields = filter.getNecessaryFields();
+        try (DirectoryStream<Path> zones = Files.newDirectoryStream(directory, GLOB)) {
+            for (Path zone : zones) {
+                JSONObject json = readZone(zone);
+                if (json == null) {
+                    continue;
+                }
+                JSONObject fieldStatistics = json.getJSONObject(FIELDS);
+                Map<String, FieldStatistics> statistics = new HashMap<>();
+                for (String field : necessaryFields) {
+                    if (fieldStatistics.has(field)) {
+                        statistics.put(field, FieldStatistics.fromJson(fieldStatistics.getJSONObject(field),
+                                node -> StoredFields.decode(clazz, field, node)));
+                    }
+                }
+                if (!filter.mayMatch(statistics)) {
+                    json.getJSONArray(FILES).forEach(file -> excluded.add((String) file));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return excluded;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return excluded;
+    }
+
+    static void prune(Path classDirectory) {
+        try (DirectoryStream<Path> zones = Files.newDirectoryStream(classDirectory.resolve(DIRECTORY), GLOB)) {
+            for (Path zone : zones) {
+                JSONObject json = readZone(zone);
+                if (json == null) {
+                    continue;
+                }
+                boolean live = false;
+                for (Object file : json.getJSONArray(FILES)) {
+                    if (Files.exists(classDirectory.resolve((String) file))) {
+                        live = true;
+                        break;
+                    }
+                }
+                if (!live) {
+                    Files.deleteIfExists(zone);
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JSONObject readZone(Path zone) throws IOException {
+        try {
+            return new JSONObject(Files.readString(zone));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.mizinchik.persistence.codec;
+
+import io.github.mizinchik.persistence.annotations.GenerateCodec;
+import io.github.mizinchik.persistence.annotations.Transient;
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+public class GeneratedCodecTest {
+    static class Inner {
+        private int a;
+
+        public Inner() {
+        }
+
+        public Inner(int a) {
+            this.a = a;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return a == ((Inner) o).a;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(a);
+        }
+    }
+
+    @GenerateCodec
+    static class Event {
+        private Integer number;
+        String name;
+        private long timestamp;
+        char type;
+        private boolean active;
+        private Double ratio;
+        private List<Integer> values;
+        private Inner inner;
+        private transient String cache;
+        @Transient
+        private String ignored;
+
+        private Event() {
+        }
+
+        Event(Integer number, String name, long timestamp, char type, boolean active, Double ratio,
+              List<Integer> values, Inner inner) {
+            this.number = number;
+            this.name = name;
+            this.timestamp = timestamp;
+            this.type = type;
+            this.active = active;
+            this.ratio = ratio;
+            this.values = values;
+            this.inner = inner;
+            this.cache = "cache";
+            this.ignored = "ignored";
+        }
+    }
+
+    @GenerateCodec
+    record Point(int x, Integer y) {
+    }
+
+    @Test
+    @DisplayName("Generated codecs are discovered for annotated classes only")
+    void generated_whenAnnotated_thenDiscovered() {
+        assertThat(Codecs.generated(Event.class)).isNotNull();
+        assertThat(Codecs.generated(Event.class).getClass().getSimpleName())
+                .isEqualTo("GeneratedCodecTest_EventJvivoCodec");
+        assertThat(Codecs.generated(Inner.class)).isNull();
+    }
+
+    @Test
+    @DisplayName("Generated codec writes the same JSON as the reflective path")
+    void serialize_whenGeneratedCodec_thenSameAsReflective() {
+        var serializer = new JsonSerializer();
+        var event = new Event(1, "name", 100L, 'c', true, 0.5, List.of(1, 2), new Inner(3));
+        assertThat(serializer.serialize(event)).isEqualTo("{\"number\":1,\"name\":\"name\",\"timestamp\":100,"
+                + "\"type\":\"c\",\"active\":true,\"ratio\":0.5,\"values\":[1,2],\"inner\":{\"a\":3}}");
+        assertThat(serializer.serialize(new Event(null, null, 1L, 'c', false, null, null, null)))
+                .isEqualTo("{\"timestamp\":1,\"type\":\"c\",\"active\":false}");
+        assertThat(serializer.serialize(new Point(1, null))).isEqualTo("{\"x\":1}");
+    }
+
+    @Test
+    @DisplayName("Generated codec restores objects written by it")
+    void instance_whenGeneratedCodec_thenRoundTrip() {
+        var serializer = new JsonSerializer();
+        var event = new Event(1, "name", 100L, 'c', true, 0.5, List.of(1, 2), new Inner(3));
+        var restored = new JsonDeserializer<>(new JSONObject(serializer.serialize(event)), Event.class).instance();
+        assertThat(restored).usingRecursiveComparison().ignoringFields("cache", "ignored").isEqualTo(event);
+        assertThat(restored.cache).isNull();
+        assertThat(restored.ignored).isNull();
+
+        var sparse = new JsonDeserializer<>(new JSONObject("{\"timestamp\":1,\"type\":\"c\",\"active\":false}"),
+                Event.class).instance();
+        assertThat(sparse.number).isNull();
+        assertThat(sparse.values).isNull();
+    }
+
+    @Test
+    @DisplayName("Generated codec of a class without a no argument constructor can't deserialize")
+    void instance_whenNoDefaultConstructor_thenThrows() {
+        assertThatThrownBy(() -> new JsonDeserializer<>(new JSONObject("{\"x\":1}"), Point.class).instance())
+                .isInstanceOf(io.github.mizinchik.persistence.exceptions.NoArgumentConstructorMissingException.class);
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.mizinchik.persistence.codec;
+
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.exceptions.NoArgumentConstructorMissingException;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+public class RuntimeCodecTest {
+    private static class Dto {
+        private static int counter = 5;
+        private byte b;
+        private short s;
+        private float f;
+        private Character character;
+        private Short boxedShort;
+        private List<String> strings;
+        private final int constant = 1;
+
+        private Dto() {
+        }
+
+        private Dto(byte b, short s, float f, Character character, Short boxedShort, List<String> strings) {
+            this.b = b;
+            this.s = s;
+            this.f = f;
+            this.character = character;
+            this.boxedShort = boxedShort;
+            this.strings = strings;
+        }
+    }
+
+    private record NoConstructor(int a) {
+    }
+
+    @Test
+    @DisplayName("Runtime codecs are built once per class and shared")
+    void of_whenCalledConcurrently_thenSameInstance() {
+        Set<Codec<Dto>> codecs = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 64).parallel().forEach(i -> codecs.add(Codecs.of(Dto.class)));
+        assertThat(codecs.size()).isEqualTo(1);
+        assertThat(codecs.iterator().next()).isInstanceOf(RuntimeCodec.class);
+    }
+
+    @Test
+    @DisplayName("Runtime codecs skip static fields and restore all supported field kinds")
+    void serialize_whenRuntimeCodec_thenRoundTrip() {
+        var dto = new Dto((byte) 1, (short) 2, 1.5f, 'x', (short) 3, List.of("a", "b"));
+        String json = new JsonSerializer().serialize(dto);
+        assertThat(json).isEqualTo("{\"b\":1,\"s\":2,\"f\":1.5,\"character\":\"x\",\"boxedShort\":3,"
+                + "\"strings\":[\"a\",\"b\"],\"constant\":1}");
+        var restored = new JsonDeserializer<>(new JSONObject(json), Dto.class).instance();
+        assertThat(restored).usingRecursiveComparison().isEqualTo(dto);
+        assertThat(Dto.counter).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Omitted reference fields are restored as nulls")
+    void instance_whenReferenceFieldMissing_thenNull() {
+        var restored = new JsonDeserializer<>(new JSONObject("{\"b\":1,\"s\":2,\"f\":1.5}"), Dto.class).instance();
+        assertThat(restored.character).isNull();
+        assertThat(restored.boxedShort).isNull();
+        assertThat(restored.strings).isNull();
+    }
+
+    @Test
+    @DisplayName("Classes without a no argument constructor are serialized but not deserialized")
+    void instance_whenNoDefaultConstructor_thenThrows() {
+        assertThat(new JsonSerializer().serialize(new NoConstructor(1))).isEqualTo("{\"a\":1}");
+        assertThatThrownBy(() -> new JsonDeserializer<>(new JSONObject("{\"a\":1}"), NoConstructor.class).instance())
+                .isInstanceOf(NoArgumentConstructorMissingException.class);
+    }
+}
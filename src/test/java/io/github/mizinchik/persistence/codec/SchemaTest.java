@@ -0,0 +1,115 @@
+package io.github.mizinchik.persistence.codec;
+
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SchemaTest {
+    private static class Account {
+        private long balance;
+        private String code;
+        private String currency;
+        private double rate;
+
+        private Account() {
+        }
+    }
+
+    private static class Narrowed {
+        private int count;
+
+        private Narrowed() {
+        }
+    }
+
+    private static class Measured {
+        private long total;
+        private String label;
+
+        private Measured() {
+        }
+    }
+
+    static {
+        Schema.of(Account.class)
+                .version(2).rename("total", "amount").widen("code", Integer.class)
+                .version(3).rename("amount", "balance").defaultValue("currency", "EUR").widen("rate", float.class)
+                .register();
+        Schema.of(Measured.class)
+                .version(2).widen("total", int.class).defaultValue("label", "none")
+                .register();
+    }
+
+    @Test
+    @DisplayName("Records of every older version are remapped to the current fields while decoding")
+    void instance_whenOldRecords_thenRemapped() {
+        var first = new JsonDeserializer<>(new JSONObject("{\"total\":5,\"code\":17,\"rate\":1.5}"), Account.class)
+                .instance();
+        assertThat(first.balance).isEqualTo(5L);
+        assertThat(first.code).isEqualTo("17");
+        assertThat(first.currency).isEqualTo("EUR");
+        assertThat(first.rate).isEqualTo(1.5);
+        var second = new JsonDeserializer<>(new JSONObject("{\"amount\":7,\"currency\":\"USD\",\"rate\":2}"),
+                Account.class).instance();
+        assertThat(second.balance).isEqualTo(7L);
+        assertThat(second.currency).isEqualTo("USD");
+        var current = new JsonDeserializer<>(new JSONObject(new JsonSerializer().serialize(second)), Account.class)
+                .instance();
+        assertThat(current).usingRecursiveComparison().isEqualTo(second);
+    }
+
+    @Test
+    @DisplayName("Only rules newer than the stamped version apply, so current records keep their nulls")
+    void instance_whenStamped_thenOnlyNewerRulesApply() {
+        var middle = new JsonDeserializer<>(new JSONObject("{\"@version\":2,\"amount\":3,\"total\":4,\"rate\":1}"),
+                Account.class).instance();
+        assertThat(middle.balance).isEqualTo(3L);
+        assertThat(middle.currency).isEqualTo("EUR");
+        var current = new JsonDeserializer<>(new JSONObject("{\"@version\":3,\"balance\":1,\"rate\":1}"), Account.class)
+                .instance();
+        assertThat(current.currency).isNull();
+        var written = new Measured();
+        written.total = 5;
+        assertThat(new JsonSerializer().serialize(written)).isEqualTo("{\"@version\":2,\"total\":5}");
+        assertThat(new JsonDeserializer<>(new JSONObject(new JsonSerializer().serialize(written)), Measured.class)
+                .instance().label).isNull();
+    }
+
+    @Test
+    @DisplayName("Widened numbers are converted once and the record is stamped with the current version")
+    void getField_whenWidened_thenConvertedOnce() {
+        var json = new JSONObject("{\"total\":7}");
+        var deserializer = new JsonDeserializer<>(json, Measured.class);
+        assertThat(deserializer.getField("total")).isEqualTo(7L);
+        assertThat(json.get("total")).isInstanceOf(Long.class);
+        assertThat(json.getInt("@version")).isEqualTo(2);
+        json.remove("label");
+        assertThat(deserializer.getField("label")).isNull();
+    }
+
+    @Test
+    @DisplayName("Filters read renamed and defaulted fields through the same mapping")
+    void getRelevantFields_whenRenamed_thenCurrentNames() {
+        var fields = new JsonDeserializer<>(new JSONObject("{\"total\":9}"), Account.class)
+                .getRelevantFields(Set.of("balance", "currency"));
+        assertThat(fields).containsEntry("balance", 9L).containsEntry("currency", "EUR");
+    }
+
+    @Test
+    @DisplayName("Only widening conversions and increasing versions are accepted")
+    void register_whenNarrowing_thenThrows() {
+        assertThatThrownBy(() -> Schema.of(Narrowed.class).widen("count", long.class).register())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Schema.of(Narrowed.class).version(2).version(2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Schema.of(Narrowed.class).rename("old", "missing").register())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
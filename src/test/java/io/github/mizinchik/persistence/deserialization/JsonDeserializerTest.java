@@ -1,5 +1,7 @@
 package io.github.mizinchik.persistence.deserialization;
 
+import io.github.mizinchik.persistence.annotations.Lazy;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.DisplayName;
@@ -244,6 +246,44 @@ public class JsonDeserializerTest {
         assertThat(instance.primitiveLongArray).isEqualTo(new long[]{1L, 2L, 3L});
     }
 
+    private static class PrimitiveArrayFields {
+        private short[] shorts;
+        private byte[] bytes;
+        private float[] floats;
+        private double[] doubles;
+        private char[] chars;
+        private boolean[] booleans;
+        private Double[] boxedDoubles;
+        private TestClass2[] objects;
+
+        public PrimitiveArrayFields() {
+        }
+    }
+
+    @Test
+    @DisplayName("Deserializing classes with arrays of every primitive type")
+    void instance_whenClassWithPrimitiveArrayFields_thenCorrect() {
+        var stream = new JsonDeserializer<>(new JSONObject(
+                "{\"shorts\":[1,-2],"
+                        + "\"bytes\":[127,-128],"
+                        + "\"floats\":[1.5,2],"
+                        + "\"doubles\":[0.1,1e300,-3],"
+                        + "\"chars\":[\"a\",\"b\"],"
+                        + "\"booleans\":[true,false],"
+                        + "\"boxedDoubles\":[0.5],"
+                        + "\"objects\":[{\"a\":1},{\"a\":2}]}"),
+                PrimitiveArrayFields.class);
+        var instance = stream.instance();
+        assertThat(instance.shorts).isEqualTo(new short[]{1, -2});
+        assertThat(instance.bytes).isEqualTo(new byte[]{127, -128});
+        assertThat(instance.floats).isEqualTo(new float[]{1.5f, 2f});
+        assertThat(instance.doubles).isEqualTo(new double[]{0.1, 1e300, -3});
+        assertThat(instance.chars).isEqualTo(new char[]{'a', 'b'});
+        assertThat(instance.booleans).isEqualTo(new boolean[]{true, false});
+        assertThat(instance.boxedDoubles).isEqualTo(new Double[]{0.5});
+        assertThat(instance.objects).isEqualTo(new TestClass2[]{new TestClass2(1), new TestClass2(2)});
+    }
+
     private static class MapFields {
         private HashMap<Integer, Integer> hashMap;
         private Map<Integer, Integer> map;
@@ -280,6 +320,33 @@ public class JsonDeserializerTest {
         assertThat(listKey).usingRecursiveComparison().isEqualTo(List.of(new String[] {"sadjkhadad", "sadkjasd"}, new String[] {"b", "a"}));
     }
 
+    private static class NestedMapFields {
+        private Map<String, Map<String, List<TestClass2>>> configuration;
+        private Map<Long, Double> ratios;
+        private List<Map<String, Integer>> listOfMaps;
+
+        public NestedMapFields() {
+        }
+    }
+
+    @Test
+    @DisplayName("Deserializing classes with nested map values")
+    void instance_whenClassWithNestedMapValues_thenCorrect() {
+        var stream = new JsonDeserializer<>(new JSONObject(
+                "{\"configuration\":{\"a\":{\"b\":[{\"a\":1},{\"a\":2}],\"c\":[]},\"d\":{}},"
+                        + "\"ratios\":{\"12345678901\":0.25,\"1\":2},"
+                        + "\"listOfMaps\":[{\"x\":1},{\"y\":null}]}"),
+                NestedMapFields.class);
+        var instance = stream.instance();
+        assertThat(instance.configuration).isEqualTo(Map.of(
+                "a", Map.of("b", List.of(new TestClass2(1), new TestClass2(2)), "c", List.of()),
+                "d", Map.of()));
+        assertThat(instance.ratios).isEqualTo(Map.of(12345678901L, 0.25, 1L, 2.0));
+        assertThat(instance.listOfMaps.get(0)).isEqualTo(Map.of("x", 1));
+        assertThat(instance.listOfMaps.get(1).containsKey("y")).isTrue();
+        assertThat(instance.listOfMaps.get(1).get("y")).isNull();
+    }
+
     @Test
     @DisplayName("Deserializing list of objects")
     void list_whenList_thenCorrect() {
@@ -313,4 +380,94 @@ public class JsonDeserializerTest {
         assertThat(map.containsKey("asfedsgrtejhh")).isTrue();
         assertThat(map.containsKey("uilioultyhyb")).isTrue();
     }
+
+    private static class NonFinite {
+        private Map<String, Double> rates;
+        private List<Double> samples;
+        private double[] bounds;
+        private Float ratio;
+
+        private NonFinite() {
+        }
+    }
+
+    private static class Order {
+        private String customer;
+        @Lazy
+        private List<TestClass> lines;
+        @Lazy
+        private Map<String, Integer> totals;
+        @Lazy
+        private Set<String> tags;
+
+        private Order() {
+        }
+    }
+
+    @Test
+    @DisplayName("Lazy fields are decoded on first access")
+    void instance_whenLazyFields_thenDecodedOnAccess() {
+        var order = new JsonDeserializer<>(new JSONObject(
+                "{\"customer\":\"acme\",\"lines\":[{\"a\":a,\"b\":1,\"c\":1},{\"a\":b,\"b\":2,\"c\":2}],"
+                        + "\"totals\":{\"net\":10},\"tags\":[\"urgent\"]}"), Order.class).instance();
+        assertThat(order.customer).isEqualTo("acme");
+        assertThat(((LazyList<TestClass>) order.lines).isDecoded()).isFalse();
+        assertThat(((LazyMap<String, Integer>) order.totals).isDecoded()).isFalse();
+        assertThat(order.lines.size()).isEqualTo(2);
+        assertThat(order.lines.get(1)).isEqualTo(new TestClass('b', (byte) 2, (short) 2));
+        assertThat(((LazyList<TestClass>) order.lines).isDecoded()).isTrue();
+        order.lines.add(new TestClass('c', (byte) 3, (short) 3));
+        assertThat(order.lines.size()).isEqualTo(3);
+        assertThat(order.totals.get("net")).isEqualTo(10);
+        assertThat(order.tags.contains("urgent")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Parallel decoding keeps the order of a large array")
+    void collection_whenParallel_thenOrderPreserved() {
+        var array = new JSONArray();
+        for (int i = 0; i < 10_000; i++) {
+            array.put(new JSONObject().put("a", "x").put("b", i % 100).put("c", i));
+        }
+        var sequential = new ArrayList<>(new JsonDeserializer<>(array, TestClass.class).collection());
+        var parallel = new ArrayList<>(new JsonDeserializer<>(array, TestClass.class).parallel().collection());
+        assertThat(parallel.size()).isEqualTo(10_000);
+        assertThat(parallel.get(9_999).c).isEqualTo((short) 9_999);
+        assertIterableEquals(sequential, parallel);
+    }
+
+    @Test
+    @DisplayName("Arrays with references are decoded sequentially and keep shared identity")
+    void collection_whenParallelWithReferences_thenSameInstance() {
+        var array = new JSONArray();
+        for (int i = 0; i < 4_000; i++) {
+            array.put(new JSONObject().put("@ref", 1));
+        }
+        array.put(new JSONObject().put("@id", 1).put("a", "x").put("b", 1).put("c", 1));
+        var base = new JsonDeserializer<>(array, TestClass.class);
+        var parallel = base.parallel();
+        assertThat(parallel).isNotSameAs(base);
+        var elements = new ArrayList<>(parallel.collection());
+        assertThat(elements.size()).isEqualTo(4_001);
+        for (var element : elements) {
+            assertThat(element).isSameAs(elements.get(4_000));
+        }
+    }
+
+    @Test
+    @DisplayName("NaN and infinities written as strings are read back into double and float targets")
+    void instance_whenNonFiniteNumbers_thenRoundTrip() {
+        var written = new NonFinite();
+        written.rates = new HashMap<>(Map.of("nan", Double.NaN, "up", Double.POSITIVE_INFINITY));
+        written.samples = new ArrayList<>(List.of(Double.NEGATIVE_INFINITY, 1.5));
+        written.bounds = new double[] {Double.NaN, Double.NEGATIVE_INFINITY};
+        written.ratio = Float.POSITIVE_INFINITY;
+        var read = new JsonDeserializer<>(new JSONObject(new JsonSerializer().serialize(written)), NonFinite.class)
+                .instance();
+        assertThat(read.rates.get("nan")).isNaN();
+        assertThat(read.rates.get("up")).isEqualTo(Double.POSITIVE_INFINITY);
+        assertIterableEquals(written.samples, read.samples);
+        assertThat(read.bounds).containsExactly(Double.NaN, Double.NEGATIVE_INFINITY);
+        assertThat(read.ratio).isEqualTo(Float.POSITIVE_INFINITY);
+    }
 }
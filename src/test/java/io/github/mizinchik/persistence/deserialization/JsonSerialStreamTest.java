@@ -1,14 +1,33 @@
 package io.github.mizinchik.persistence.deserialization;
 
+import io.github.mizinchik.persistence.filtering.Aggregation;
 import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.Ordering;
 import io.github.mizinchik.persistence.serialization.JsonSerializer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 
 public class JsonSerialStreamTest {
@@ -128,4 +147,181 @@ public class JsonSerialStreamTest {
                 List.of(testClassComplexesData.get(2))
         );
     }
+
+    @Test
+    @DisplayName("File scans stop once the reading thread is interrupted")
+    void toList_whenInterrupted_thenCancelled(@TempDir Path directory) throws IOException {
+        JsonSerialStream<TestClass2> stream = new JsonSerialStream<>(TestClass2.class);
+        Path file = directory.resolve("a.jvivo");
+        Files.writeString(file, "{\"a\":1}");
+        stream.add(file.toFile());
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(stream::toList).isInstanceOf(CancellationException.class);
+        } finally {
+            Thread.interrupted();
+        }
+        assertThat(stream.toList()).isEqualTo(List.of(new TestClass2(1)));
+    }
+
+    @Test
+    @DisplayName("Publisher reads a file only when the subscriber asks for the next item")
+    void toPublisher_whenRequestedOneByOne_thenReadLazily(@TempDir Path directory) throws IOException {
+        JsonSerialStream<TestClass2> stream = new JsonSerialStream<>(TestClass2.class);
+        for (int i = 0; i < 3; i++) {
+            Path file = directory.resolve(i + ".jvivo");
+            Files.writeString(file, "{\"a\":" + i + "}");
+            stream.add(file.toFile());
+        }
+        List<TestClass2> received = new ArrayList<>();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        stream.toPublisher(new AttributeFilter("a", (Integer a) -> a != 1)).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription value) {
+                subscription.set(value);
+            }
+
+            @Override
+            public void onNext(TestClass2 item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.set(true);
+            }
+        });
+        assertThat(received.isEmpty()).isTrue();
+        subscription.get().request(1);
+        assertThat(received).isEqualTo(List.of(new TestClass2(0)));
+        Files.writeString(directory.resolve("2.jvivo"), "{\"a\":20}");
+        subscription.get().request(5);
+        assertThat(received).isEqualTo(List.of(new TestClass2(0), new TestClass2(20)));
+        assertThat(completed.get()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Aggregates are accumulated from the filtered fields without instantiating objects")
+    void aggregate_whenFiltered_thenAccumulated() {
+        JsonSerialStream<TestClassComplex> stream = new JsonSerialStream<>(TestClassComplex.class);
+        JsonSerializer serializer = new JsonSerializer();
+        for (int i = 1; i <= 6; i++) {
+            stream.add(serializer.serialize(new TestClassComplex(i, i % 2 == 0 ? "even" : "odd", null)));
+        }
+        stream.add("{\"name\":\"none\"}");
+        AttributeFilter filter = new AttributeFilter("number", (Integer number) -> number > 1);
+        assertThat(stream.aggregate(filter, "number", Aggregation.COUNT)).isEqualTo(5L);
+        assertThat(stream.aggregate(filter, "number", Aggregation.SUM)).isEqualTo(20L);
+        assertThat(stream.aggregate(filter, "number", Aggregation.AVG)).isEqualTo(4.0);
+        assertThat(stream.aggregate(null, "number", Aggregation.MIN)).isEqualTo(1);
+        assertThat(stream.aggregate(null, "name", Aggregation.MAX)).isEqualTo("odd");
+        assertThat(stream.aggregate(null, "number", Aggregation.COUNT)).isEqualTo(6L);
+        assertThat(stream.groupBy(filter, "name", "number", Aggregation.SUM))
+                .isEqualTo(Map.of("even", 12L, "odd", 8L));
+        Map<Object, Object> maximums = new HashMap<>(Map.of("even", 6, "odd", 5));
+        maximums.put("none", null);
+        assertThat(stream.groupBy(null, "name", "number", Aggregation.MAX)).isEqualTo(maximums);
+    }
+
+    @Test
+    @DisplayName("Limited ordering keeps only the top records in a heap")
+    void toList_whenOrderedWithLimit_thenTopRecords() {
+        JsonSerialStream<TestClassComplex> stream = new JsonSerialStream<>(TestClassComplex.class);
+        JsonSerializer serializer = new JsonSerializer();
+        for (int i = 0; i < 100; i++) {
+            stream.add(serializer.serialize(new TestClassComplex((i * 37) % 100, "name" + i, null)));
+        }
+        List<TestClassComplex> latest = stream.toList(
+                new AttributeFilter("number", (Integer number) -> number % 2 == 1),
+                Ordering.descending("number").limit(3));
+        assertThat(latest.stream().map(object -> object.number).toList()).isEqualTo(List.of(99, 97, 95));
+        assertThat(stream.toList(null, Ordering.ascending("number").limit(0)).isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Unlimited ordering spills sorted runs and merges them stably")
+    void toList_whenOrderedOverMemoryBudget_thenMergedRuns() throws IOException {
+        JsonSerialStream<TestClassComplex> stream = new JsonSerialStream<>(TestClassComplex.class, 4);
+        JsonSerializer serializer = new JsonSerializer();
+        List<TestClassComplex> data = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            data.add(new TestClassComplex(i % 3 == 0 ? null : i % 5, "name" + i, null));
+        }
+        data.forEach(object -> stream.add(serializer.serialize(object)));
+        Path temporary = Path.of(System.getProperty("java.io.tmpdir"));
+        long runsBefore = countRuns(temporary);
+        List<TestClassComplex> sorted = stream.toList(null, Ordering.ascending("number"));
+        List<TestClassComplex> expected = new ArrayList<>(data);
+        expected.sort(Comparator.comparing(object -> object.number, Comparator.nullsLast(Comparator.naturalOrder())));
+        assertThat(sorted.stream().map(object -> object.name).toList())
+                .isEqualTo(expected.stream().map(object -> object.name).toList());
+        assertThat(countRuns(temporary)).isEqualTo(runsBefore);
+    }
+
+    private static long countRuns(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("jvivo-run")).count();
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk sources read NDJSON lines and large JSON arrays")
+    void addBulk_whenNdjsonOrArray_thenRecordsStreamed(@TempDir Path directory) throws IOException {
+        Path lines = directory.resolve("records.ndjson");
+        Files.writeString(lines, "{\"a\":1}\n\n{broken\n{\"a\":2}\n");
+        var array = new ByteArrayInputStream(" [ {\"a\":3} , {\"a\":4},{\"a\":5} ]".getBytes(StandardCharsets.UTF_8));
+        var result = new JsonSerialStream<>(TestClass2.class)
+                .addBulk(lines)
+                .addBulk(array)
+                .toList(new AttributeFilter("a", (Integer a) -> a != 4));
+        assertThat(result).isEqualTo(List.of(new TestClass2(1), new TestClass2(2), new TestClass2(3),
+                new TestClass2(5)));
+    }
+
+    @Test
+    @DisplayName("Publisher reads a bulk source only as far as the subscriber asks")
+    void toPublisher_whenBulkRequestedOneByOne_thenReadLazily() {
+        byte[] records = "{\"a\":1}\n".repeat(200_000).getBytes(StandardCharsets.UTF_8);
+        AtomicLong read = new AtomicLong();
+        var source = new ByteArrayInputStream(records) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                int count = super.read(buffer, offset, length);
+                read.addAndGet(Math.max(count, 0));
+                return count;
+            }
+        };
+        List<TestClass2> received = new ArrayList<>();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        new JsonSerialStream<>(TestClass2.class).addBulk(source).toPublisher().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription value) {
+                subscription.set(value);
+            }
+
+            @Override
+            public void onNext(TestClass2 item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        subscription.get().request(1);
+        assertThat(received).isEqualTo(List.of(new TestClass2(1)));
+        assertThat(read.get()).isLessThan(records.length / 10);
+        subscription.get().cancel();
+    }
 }
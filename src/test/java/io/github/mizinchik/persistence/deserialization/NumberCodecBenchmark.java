@@ -0,0 +1,77 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import io.github.mizinchik.persistence.serialization.JsonNumbers;
+import org.json.JSONObject;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+public final class NumberCodecBenchmark {
+    private static final int RECORDS = 20_000;
+    private static final int ROUNDS = 10;
+
+    private NumberCodecBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        double[] doubles = new double[RECORDS];
+        long[] longs = new long[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            doubles[i] = random.nextGaussian() * 1e4;
+            longs[i] = random.nextLong() >> random.nextInt(64);
+        }
+        String[] records = new String[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            StringBuilder builder = new StringBuilder("{\"id\":").append(longs[i]).append(",\"value\":");
+            JsonNumbers.append(doubles[i], builder).append(",\"count\":").append(i).append('}');
+            records[i] = builder.toString();
+        }
+        measure("write Number.toString", () -> {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < RECORDS; i++) {
+                builder.setLength(0);
+                builder.append((Object) doubles[i]).append((Object) longs[i]);
+            }
+            return builder.length();
+        });
+        measure("write JsonNumbers", () -> {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < RECORDS; i++) {
+                builder.setLength(0);
+                JsonNumbers.append((Number) doubles[i], builder);
+                JsonNumbers.append((Number) longs[i], builder);
+            }
+            return builder.length();
+        });
+        measure("read JSONObject", () -> {
+            double sum = 0;
+            for (String record : records) {
+                JSONObject json = new JSONObject(record);
+                sum += json.getDouble("value") + json.getLong("id") + json.getInt("count");
+            }
+            return sum;
+        });
+        measure("read NumberTokener", () -> {
+            double sum = 0;
+            for (String record : records) {
+                JSONObject json = NumberTokener.parseObject(record);
+                sum += json.getDouble("value") + json.getLong("id") + json.getInt("count");
+            }
+            return sum;
+        });
+    }
+
+    private static void measure(String name, Supplier<Object> body) {
+        Object sink = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = body.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = body.get();
+        }
+        long perRecord = (System.nanoTime() - start) / ((long) ROUNDS * RECORDS);
+        System.out.printf("%-24s %6d ns/record (%s)%n", name, perRecord, sink);
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.mizinchik.persistence.deserialization;
+
+import io.github.mizinchik.persistence.serialization.JsonNumbers;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NumberTokenerTest {
+    private static class Telemetry {
+        private int count;
+        private long total;
+        private double ratio;
+        private Double reading;
+        private float level;
+        private BigDecimal amount;
+
+        private Telemetry() {
+        }
+    }
+
+    @Test
+    @DisplayName("Integers, decimals and exponents are parsed without leaving the chars")
+    void parse_whenNumbers_thenSameAsOrgJson() {
+        assertThat(NumberTokener.parse("42")).isEqualTo(42);
+        assertThat(NumberTokener.parse("-2147483648")).isEqualTo(Integer.MIN_VALUE);
+        assertThat(NumberTokener.parse("2147483648")).isEqualTo(2147483648L);
+        assertThat(NumberTokener.parse("0.1")).isEqualTo(0.1);
+        assertThat(NumberTokener.parse("-1.5e3")).isEqualTo(-1500.0);
+        assertThat(NumberTokener.parse("1.0E-7")).isEqualTo(1.0E-7);
+        assertThat(NumberTokener.parse("-0.0")).isEqualTo(-0.0);
+        assertThat(NumberTokener.parse("12345678901234567890")).isNull();
+        assertThat(NumberTokener.parse("012")).isNull();
+        assertThat(NumberTokener.parse("1.")).isNull();
+        assertThat(NumberTokener.parse("-")).isNull();
+        JSONObject json = NumberTokener.parseObject("{\"a\":12345678901234567890,\"b\":[1,2.5,-3e2],\"c\":012,"
+                + "\"d\":-0,\"e\":7 }");
+        assertThat(json.get("a")).isEqualTo(new BigInteger("12345678901234567890"));
+        assertThat(json.getJSONArray("b").toList()).containsExactly(1, 2.5, -300.0);
+        assertThat(json.get("c")).isEqualTo(new JSONObject("{\"c\":012}").get("c"));
+        assertThat(json.get("d")).isEqualTo(-0.0);
+        assertThat(json.get("e")).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Written doubles are read back to the same value")
+    void append_whenRandomDoubles_thenRoundTrip() {
+        Random random = new Random(7);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            double value = switch (i % 4) {
+                case 0 -> random.nextDouble();
+                case 1 -> random.nextGaussian() * 1e6;
+                case 2 -> Double.longBitsToDouble(random.nextLong());
+                default -> random.nextInt(1_000_000) / 100.0;
+            };
+            if (!Double.isFinite(value)) {
+                continue;
+            }
+            builder.setLength(0);
+            JsonNumbers.append(value, builder);
+            assertThat(builder.toString()).isEqualTo(Double.toString(value));
+            assertThat(NumberTokener.parseObject("{\"v\":" + builder + "}").getDouble("v")).isEqualTo(value);
+        }
+    }
+
+    @Test
+    @DisplayName("Numeric fields keep their values, non-finite ones included")
+    void instance_whenNumericFields_thenRoundTrip() {
+        var telemetry = new Telemetry();
+        telemetry.count = -17;
+        telemetry.total = 9_007_199_254_740_993L;
+        telemetry.ratio = Double.NaN;
+        telemetry.reading = Double.NEGATIVE_INFINITY;
+        telemetry.level = 0.1f;
+        telemetry.amount = new BigDecimal("12.750");
+        String json = new JsonSerializer().serialize(telemetry);
+        assertThat(json).contains("\"ratio\":\"NaN\"");
+        Telemetry restored = new JsonDeserializer<>(NumberTokener.parseObject(json), Telemetry.class).instance();
+        assertThat(restored.count).isEqualTo(-17);
+        assertThat(restored.total).isEqualTo(9_007_199_254_740_993L);
+        assertThat(restored.ratio).isNaN();
+        assertThat(restored.reading).isEqualTo(Double.NEGATIVE_INFINITY);
+        assertThat(restored.level).isEqualTo(0.1f);
+        assertThat(restored.amount).isEqualTo(new BigDecimal("12.750"));
+    }
+}
@@ -1,10 +1,18 @@
 package io.github.mizinchik.persistence.serialization;
 
 import io.github.mizinchik.persistence.annotations.Transient;
+import io.github.mizinchik.persistence.deserialization.JsonDeserializer;
+import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -41,7 +49,7 @@ public class JsonSerializerTest {
     void serialize_whenString_thenCorrect() {
         assertThat(serializer.serialize("sadghjasdhjsadhjsad")).isEqualTo("\"sadghjasdhjsadhjsad\"");
         assertThat(serializer.serialize("asdsadfafwwefewfewscewce")).isEqualTo("\"asdsadfafwwefewfewscewce\"");
-        assertThat(serializer.serialize("asdsadsadasdsadsadsadadsdsa\"sdsadsadasdasdsadsa")).isEqualTo("\"asdsadsadasdsadsadsadadsdsa\"sdsadsadasdasdsadsa\"");
+        assertThat(serializer.serialize("asdsadsadasdsadsadsadadsdsa\"sdsadsadasdasdsadsa")).isEqualTo("\"asdsadsadasdsadsadsadadsdsa\\\"sdsadsadasdasdsadsa\"");
         assertThat(serializer.serialize("null")).isEqualTo("\"null\"");
     }
 
@@ -79,6 +87,20 @@ public class JsonSerializerTest {
     void serialize_whenArray_thenCorrect() {
         assertThat(serializer.serialize(new int[]{1, 2, 3, 4})).isEqualTo("[1,2,3,4]");
         assertThat(serializer.serialize(new String[]{null, "null", "absbdhbasdas"})).isEqualTo("[null,\"null\",\"absbdhbasdas\"]");
+        assertThat(serializer.serialize(new int[0])).isEqualTo("[]");
+    }
+
+    @Test
+    @DisplayName("Serializing arrays of every primitive type")
+    void serialize_whenPrimitiveArray_thenCorrect() {
+        assertThat(serializer.serialize(new long[]{1L, -2L})).isEqualTo("[1,-2]");
+        assertThat(serializer.serialize(new double[]{0.1, 2})).isEqualTo("[0.1,2.0]");
+        assertThat(serializer.serialize(new float[]{1.5f})).isEqualTo("[1.5]");
+        assertThat(serializer.serialize(new short[]{3, 4})).isEqualTo("[3,4]");
+        assertThat(serializer.serialize(new byte[]{-128, 127})).isEqualTo("[-128,127]");
+        assertThat(serializer.serialize(new char[]{'a', 'b'})).isEqualTo("[\"a\",\"b\"]");
+        assertThat(serializer.serialize(new boolean[]{true, false})).isEqualTo("[true,false]");
+        assertThat(serializer.serialize(new int[][]{{1}, {}})).isEqualTo("[[1],[]]");
     }
 
     @Test
@@ -145,4 +167,106 @@ public class JsonSerializerTest {
     void serialize_whenTransientAnnotation_thenNotSerialized() {
         assertThat(serializer.serialize(new TestRecord2("name", 1555))).isEqualTo("{\"number\":1555}");
     }
+
+    private static class Lookup {
+        private String code;
+
+        private Lookup() {
+        }
+
+        private Lookup(String code) {
+            this.code = code;
+        }
+    }
+
+    private static class Node {
+        private String name;
+        private Lookup lookup;
+        private Node next;
+        private List<Node> children;
+
+        private Node() {
+        }
+
+        private Node(String name, Lookup lookup) {
+            this.name = name;
+            this.lookup = lookup;
+        }
+    }
+
+    @Test
+    @DisplayName("Shared instances are written once and restored as one instance")
+    void serialize_whenSharedReferences_thenWrittenOnce() {
+        var lookup = new Lookup("shared");
+        var root = new Node("root", lookup);
+        root.children = List.of(new Node("first", lookup), new Node("second", lookup));
+        String json = JsonSerializer.withReferences().serialize(root);
+        assertThat(json.split("shared", -1).length).isEqualTo(2);
+        assertThat(json).isEqualTo("{\"name\":\"root\",\"lookup\":{\"@id\":1,\"code\":\"shared\"},"
+                + "\"children\":[{\"name\":\"first\",\"lookup\":{\"@ref\":1}},"
+                + "{\"name\":\"second\",\"lookup\":{\"@ref\":1}}]}");
+        assertThat(serializer.serialize(new Node("plain", lookup)))
+                .isEqualTo(JsonSerializer.withReferences().serialize(new Node("plain", lookup)));
+        Node restored = new JsonDeserializer<>(new JSONObject(json), Node.class).instance();
+        assertThat(restored.children.get(0).lookup).isSameAs(restored.lookup);
+        assertThat(restored.children.get(1).lookup).isSameAs(restored.lookup);
+        assertThat(restored.lookup.code).isEqualTo("shared");
+    }
+
+    @Test
+    @DisplayName("Cycles are written as back-references and restored")
+    void serialize_whenCycle_thenBackReference() {
+        var first = new Node("first", null);
+        var second = new Node("second", null);
+        first.next = second;
+        second.next = first;
+        String json = JsonSerializer.withReferences().serialize(first);
+        assertThat(json).isEqualTo("{\"@id\":1,\"name\":\"first\",\"next\":{\"name\":\"second\","
+                + "\"next\":{\"@ref\":1}}}");
+        Node restored = new JsonDeserializer<>(new JSONObject(json), Node.class).instance();
+        assertThat(restored.next.name).isEqualTo("second");
+        assertThat(restored.next.next).isSameAs(restored);
+    }
+
+    @Test
+    @DisplayName("Parallel serialization matches the sequential output")
+    void serialize_whenParallel_thenSameAsSequential(@TempDir Path directory) throws IOException {
+        var nodes = new ArrayList<Node>();
+        var totals = new HashMap<String, Integer>();
+        for (int i = 0; i < 20_000; i++) {
+            nodes.add(new Node("node" + i, new Lookup("code" + i)));
+            totals.put("key" + i, i);
+        }
+        var parallel = new JsonSerializer().parallel();
+        assertThat(parallel.serialize(nodes)).isEqualTo(serializer.serialize(nodes));
+        assertThat(parallel.serialize(totals)).isEqualTo(serializer.serialize(totals));
+        var file = Files.createFile(directory.resolve("nodes.json"));
+        parallel.serialize(nodes, file.toFile());
+        assertThat(Files.readString(file)).isEqualTo(serializer.serialize(nodes));
+    }
+
+    private static class Note {
+        private String text;
+        private char mark;
+        private Map<String, Integer> counts;
+
+        private Note() {
+        }
+    }
+
+    @Test
+    @DisplayName("Quotes, backslashes and control characters are escaped")
+    void serialize_whenSpecialCharacters_thenEscaped() {
+        assertThat(serializer.serialize("a\"b\\c\nd\te\u0001é")).isEqualTo("\"a\\\"b\\\\c\\nd\\te\\u0001é\"");
+        assertThat(serializer.serialize('"')).isEqualTo("\"\\\"\"");
+        assertThat(serializer.serialize(Map.of("k\"ey", 1))).isEqualTo("{\"k\\\"ey\":1}");
+        var note = new Note();
+        note.text = "line\nbreak \"quoted\" \\ path";
+        note.mark = '\\';
+        note.counts = Map.of("tab\tkey", 2);
+        Note restored = new JsonDeserializer<>(new JSONObject(serializer.serialize(note)), Note.class).instance();
+        assertThat(restored.text).isEqualTo(note.text);
+        assertThat(restored.mark).isEqualTo('\\');
+        assertThat(restored.counts).isEqualTo(note.counts);
+    }
 }
@@ -0,0 +1,120 @@
+package io.github.mizinchik.persistence.session;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FlushPolicyTest {
+    @TempDir
+    private Path directory;
+
+    private static class Metric {
+        private int id;
+
+        private Metric() {
+        }
+
+        private Metric(int id) {
+            this.id = id;
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Crossing the record threshold flushes the buffer in the background")
+    void insert_whenRecordThresholdCrossed_thenFlushed() throws InterruptedException {
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        session.setFlushPolicy(FlushPolicy.manual().maxRecords(100));
+        for (int i = 0; i < 99; i++) {
+            session.insert(new Metric(i));
+        }
+        BufferMetrics pending = session.getBufferMetrics();
+        assertThat(pending.records()).isEqualTo(99);
+        assertThat(pending.bytes()).isPositive();
+        assertThat(pending.flushes()).isZero();
+        session.insert(new Metric(99));
+        await(() -> session.getBufferMetrics().flushes() == 1);
+        assertThat(session.getBufferMetrics().records()).isZero();
+        session.setFlushPolicy(FlushPolicy.manual());
+        assertThat(session.find(Metric.class)).hasSize(100);
+    }
+
+    @Test
+    @DisplayName("Records older than the age threshold are flushed without further inserts")
+    void insert_whenAgeThresholdCrossed_thenFlushed() throws InterruptedException {
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        session.setFlushPolicy(FlushPolicy.manual().maxBytes(1L << 30).maxAge(Duration.ofMillis(50)));
+        session.insert(new Metric(1));
+        await(() -> session.getBufferMetrics().records() == 0);
+        assertThat(session.getBufferMetrics().oldest()).isEqualTo(Duration.ZERO);
+        session.setFlushPolicy(FlushPolicy.manual());
+        assertThat(session.find(Metric.class)).extracting(metric -> metric.id).containsExactly(1);
+    }
+
+    @Test
+    @DisplayName("Records taken by a running background flush stay visible to finds and no longer age the buffer")
+    void find_whenFlushInFlight_thenTakenRecordsVisible() throws InterruptedException {
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        Thread tester = Thread.currentThread();
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        session.delete(Metric.class, new AttributeFilter("id", (Integer id) -> {
+            if (Thread.currentThread() != tester) {
+                flushing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return false;
+        }));
+        session.setFlushPolicy(FlushPolicy.manual().maxRecords(3));
+        session.insert(new Metric(1));
+        session.insert(new Metric(2));
+        Thread.sleep(100);
+        session.insert(new Metric(3));
+        assertThat(flushing.await(10, TimeUnit.SECONDS)).isTrue();
+        BufferMetrics inFlight = session.getBufferMetrics();
+        assertThat(inFlight.records()).isZero();
+        assertThat(inFlight.oldest()).isEqualTo(Duration.ZERO);
+        assertThat(session.find(Metric.class)).extracting(metric -> metric.id).containsExactlyInAnyOrder(1, 2, 3);
+        release.countDown();
+        await(() -> session.getBufferMetrics().flushes() == 1);
+        long inserted = System.nanoTime();
+        session.insert(new Metric(4));
+        assertThat(session.getBufferMetrics().oldest())
+                .isLessThanOrEqualTo(Duration.ofNanos(System.nanoTime() - inserted));
+        session.setFlushPolicy(FlushPolicy.manual());
+        assertThat(session.find(Metric.class)).extracting(metric -> metric.id).containsExactlyInAnyOrder(1, 2, 3, 4);
+    }
+
+    @Test
+    @DisplayName("Thresholds must be positive")
+    void maxRecords_whenNotPositive_thenThrows() {
+        assertThatThrownBy(() -> FlushPolicy.manual().maxRecords(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FlushPolicy.manual().maxAge(Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(FlushPolicy.manual().isManual()).isTrue();
+    }
+}
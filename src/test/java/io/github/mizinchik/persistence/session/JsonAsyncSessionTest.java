@@ -0,0 +1,118 @@
+package io.github.mizinchik.persistence.session;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.RangePredicate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonAsyncSessionTest {
+    @TempDir
+    private Path directory;
+
+    private static class Item {
+        private int id;
+        private String payload;
+
+        private Item() {
+        }
+
+        private Item(int id) {
+            this.id = id;
+            this.payload = "payload" + id;
+        }
+    }
+
+    @Test
+    @DisplayName("Asynchronous operations run on virtual threads by default")
+    void findAsync_whenDefaultExecutor_thenCompleted() throws Exception {
+        try (AsyncSession session = new JsonAsyncSession()) {
+            session.setDirectory(directory);
+            List<CompletableFuture<Void>> inserts = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                inserts.add(session.insertAsync(new Item(i)));
+            }
+            CompletableFuture.allOf(inserts.toArray(CompletableFuture[]::new)).get();
+            session.persistAsync().get();
+            session.deleteAsync(Item.class, new AttributeFilter("id", RangePredicate.lessThan(5))).get();
+            assertThat(session.findAsync(Item.class).get()).hasSize(5);
+            assertThat(session.findAsync(Item.class, new AttributeFilter("id", RangePredicate.atLeast(8))).get())
+                    .extracting(item -> item.id)
+                    .containsExactlyInAnyOrder(8, 9);
+        }
+    }
+
+    @Test
+    @DisplayName("Operations over the in-flight limit are rejected instead of queued")
+    void insertAsync_whenLimitReached_thenRejected() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        try (AsyncSession session = new JsonAsyncSession(queued::add, 2)) {
+            session.setDirectory(directory);
+            var first = session.insertAsync(new Item(1));
+            var second = session.insertAsync(new Item(2));
+            var third = session.insertAsync(new Item(3));
+            assertThatThrownBy(third::get).cause().isInstanceOf(RejectedExecutionException.class);
+            queued.removeFirst().run();
+            assertThat(first).isCompleted();
+            assertThat(session.insertAsync(new Item(4))).isNotCompleted();
+            assertThat(second).isNotCompleted();
+        }
+    }
+
+    @Test
+    @DisplayName("Cancelling a find interrupts the scan and frees its slot")
+    void findAsync_whenCancelled_thenScanStopped() throws Exception {
+        Session writer = new JsonSession();
+        writer.setDirectory(directory);
+        for (int i = 0; i < 3000; i++) {
+            writer.insert(new Item(i));
+        }
+        writer.persist();
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicInteger evaluated = new AtomicInteger();
+        Predicate<Integer> blocking = id -> {
+            evaluated.incrementAndGet();
+            scanning.countDown();
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (AsyncSession session = new JsonAsyncSession(executor, 1)) {
+            session.setDirectory(directory);
+            var find = session.findAsync(Item.class, new AttributeFilter("id", blocking));
+            assertThat(scanning.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(find.cancel(true)).isTrue();
+            assertThatThrownBy(find::get).isInstanceOf(CancellationException.class);
+            CompletableFuture<List<Item>> next;
+            do {
+                next = session.findAsync(Item.class, new AttributeFilter("id", RangePredicate.equalTo(1)));
+                Thread.onSpinWait();
+            } while (next.isCompletedExceptionally());
+            assertThat(next.get(10, TimeUnit.SECONDS)).hasSize(1);
+            assertThat(evaluated).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
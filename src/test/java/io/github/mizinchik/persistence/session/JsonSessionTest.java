@@ -1,6 +1,9 @@
 package io.github.mizinchik.persistence.session;
 
+import io.github.mizinchik.persistence.filtering.Aggregation;
 import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.Join;
+import io.github.mizinchik.persistence.filtering.Ordering;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,9 +15,12 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Flow;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
@@ -75,6 +81,17 @@ public class JsonSessionTest {
         }
     }
 
+    private static class TestClassDouble {
+        private double value;
+
+        public TestClassDouble(double value) {
+            this.value = value;
+        }
+
+        public TestClassDouble() {
+        }
+    }
+
     @BeforeEach
     void createDirectory() throws IOException {
         Files.createDirectories(BASE_DIRECTORY);
@@ -174,14 +191,167 @@ public class JsonSessionTest {
         assertThat(countFiles(TestClass2.class)).isEqualTo(1);
     }
 
-    private void assertTwoListsEqual(List list1, List list2) {
+    @Test
+    @DisplayName("Publisher honours the demand and releases the snapshot when cancelled")
+    void findPublisher_whenSubscriberCancels_thenStops() {
+        Session session = new JsonSession();
+        session.setDirectory(BASE_DIRECTORY);
+        for (int i = 0; i < 10; i++) {
+            session.insert(new TestClass2(i));
+        }
+        session.persist();
+        List<TestClass2> received = new ArrayList<>();
+        session.findPublisher(TestClass2.class, new AttributeFilter("a", (Integer a) -> a % 2 == 0))
+                .subscribe(new Flow.Subscriber<>() {
+                    private Flow.Subscription subscription;
+
+                    @Override
+                    public void onSubscribe(Flow.Subscription value) {
+                        subscription = value;
+                        subscription.request(2);
+                    }
+
+                    @Override
+                    public void onNext(TestClass2 item) {
+                        received.add(item);
+                        if (received.size() == 3) {
+                            subscription.cancel();
+                        } else if (received.size() == 2) {
+                            subscription.request(Long.MAX_VALUE);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        throw new AssertionError(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        throw new AssertionError("Cancelled publisher completed");
+                    }
+                });
+        assertThat(received.size()).isEqualTo(3);
+        assertThat(received.stream().allMatch(item -> item.a % 2 == 0)).isTrue();
+        session.delete(TestClass2.class, new AttributeFilter("a", (Integer a) -> a > 0));
+        session.persist();
+        assertThat(countFiles(TestClass2.class)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Aggregates see the persisted state and skip deleted records")
+    void aggregate_whenDeletedRecords_thenExcluded() {
+        Session session = new JsonSession();
+        session.setDirectory(BASE_DIRECTORY);
+        for (int i = 0; i < 10; i++) {
+            session.insert(new TestClassComplex(i, i < 5 ? "low" : "high", new TestClass2(i)));
+        }
+        session.delete(TestClassComplex.class, new AttributeFilter("number", (Integer number) -> number == 9));
+        var filter = new AttributeFilter("number", (Integer number) -> number > 0);
+        assertThat(session.aggregate(TestClassComplex.class, filter, "number", Aggregation.SUM)).isEqualTo(36L);
+        assertThat(session.aggregate(TestClassComplex.class, null, "number", Aggregation.COUNT)).isEqualTo(9L);
+        assertThat(session.groupBy(TestClassComplex.class, filter, "name", "number", Aggregation.AVG))
+                .isEqualTo(Map.of("low", 2.5, "high", 6.5));
+    }
+
+    @Test
+    @DisplayName("Finds over the persisted records leave pending inserts in the buffer")
+    void findPersisted_whenInsertsPending_thenNotPersisted() {
+        Session session = new JsonSession();
+        session.setDirectory(BASE_DIRECTORY);
+        session.insert(new TestClass2(1));
+        session.persist();
+        session.insert(new TestClass2(2));
+        var filter = new AttributeFilter("a", (Integer a) -> a > 0);
+        assertThat(session.findPersisted(TestClass2.class, filter)).isEqualTo(List.of(new TestClass2(1)));
+        assertThat(session.getBufferMetrics().records()).isEqualTo(1);
+        assertTwoListsEqual(session.find(TestClass2.class, filter), List.of(new TestClass2(1), new TestClass2(2)));
+    }
+
+    @Test
+    @DisplayName("Ordered finds return the latest records first")
+    void find_whenOrderedWithLimit_thenLatestFirst() {
+        Session session = new JsonSession();
+        session.setDirectory(BASE_DIRECTORY);
+        for (int i = 0; i < 20; i++) {
+            session.insert(new TestClass2(i));
+        }
+        assertThat(session.find(TestClass2.class, null, Ordering.descending("a").limit(2)))
+                .isEqualTo(List.of(new TestClass2(19), new TestClass2(18)));
+        assertThat(session.find(TestClass2.class,
+                new AttributeFilter("a", (Integer a) -> a < 3), Ordering.ascending("a")))
+                .isEqualTo(List.of(new TestClass2(0), new TestClass2(1), new TestClass2(2)));
+    }
+
+    @Test
+    @DisplayName("Joins match records by key with filters pushed down to both sides")
+    void join_whenKeysMatch_thenPairsAndProjections() {
+        Session session = new JsonSession();
+        session.setDirectory(BASE_DIRECTORY);
+        for (int i = 0; i < 6; i++) {
+            session.insert(new TestClass2(i));
+        }
+        for (int i = 0; i < 12; i++) {
+            session.insert(new TestClassComplex(i % 4, "order" + i, null));
+        }
+        var join = Join.of(TestClassComplex.class, "number", TestClass2.class, "a")
+                .whereLeft(new AttributeFilter("number", (Integer number) -> number > 0))
+                .whereRight(new AttributeFilter("a", (Integer a) -> a < 3));
+        var pairs = session.join(join);
+        assertThat(pairs.size()).isEqualTo(6);
+        assertThat(pairs.stream().allMatch(pair -> pair.getKey().number == pair.getValue().a)).isTrue();
+        var fields = session.joinFields(Join.of(TestClass2.class, "a", TestClassComplex.class, "number")
+                .selectRight("name")
+                .whereRight(new AttributeFilter("name", (String name) -> name.equals("order7"))));
+        assertThat(fields.size()).isEqualTo(1);
+        assertThat(fields.getFirst().getKey()).isEqualTo(Map.of("a", 3));
+        assertThat(fields.getFirst().getValue()).isEqualTo(Map.of("number", 3, "name", "order7"));
+    }
+
+    @Test
+    @DisplayName("Integral and floating-point join keys match by value")
+    void join_whenKeyTypesDiffer_thenMatchedByValue() {
+        Session session = new JsonSession();
+        session.setDirectory(BASE_DIRECTORY);
+        for (int i = 0; i < 3; i++) {
+            session.insert(new TestClass2(i));
+        }
+        session.insert(new TestClassDouble(1.0));
+        session.insert(new TestClassDouble(1.5));
+        session.insert(new TestClassDouble(2.0));
+        var pairs = session.join(Join.of(TestClass2.class, "a", TestClassDouble.class, "value"));
+        assertThat(pairs.size()).isEqualTo(2);
+        assertThat(pairs.stream().allMatch(pair -> pair.getKey().a == pair.getValue().value)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Exported NDJSON imports back into the store")
+    void exportTo_whenImported_thenSameRecords() throws IOException {
+        Session session = new JsonSession();
+        session.setDirectory(BASE_DIRECTORY);
+        var records = new ArrayList<TestClassComplex>();
+        for (int i = 0; i < 50; i++) {
+            records.add(new TestClassComplex(i, "record " + i, new TestClass2(i)));
+        }
+        records.forEach(session::insert);
+        Path export = BASE_DIRECTORY.resolve("export.ndjson");
+        session.exportTo(TestClassComplex.class, export);
+        assertThat(Files.readAllLines(export).size()).isEqualTo(50);
+        Session copy = new JsonSession();
+        copy.setDirectory(BASE_DIRECTORY.resolve("copy"));
+        copy.importFrom(TestClassComplex.class, export);
+        copy.persist();
+        assertTwoListsEqual(copy.find(TestClassComplex.class), records);
+    }
+
+    private void assertTwoListsEqual(List<?> list1, List<?> list2) {
         assertThat(list1.size()).isEqualTo(list2.size());
         for (var obj : list2) {
             assertThat(list1.contains(obj)).isTrue();
         }
     }
 
-    private int countFiles(Class clazz) {
+    private int countFiles(Class<?> clazz) {
         int countFiles = 0;
         try (DirectoryStream<Path> persisted =
                      Files.newDirectoryStream(
@@ -0,0 +1,114 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.Ordering;
+import io.github.mizinchik.persistence.filtering.PrefixPredicate;
+import io.github.mizinchik.persistence.filtering.RangePredicate;
+import io.github.mizinchik.persistence.session.JsonSession;
+import io.github.mizinchik.persistence.session.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BPlusTreeTest {
+    @TempDir
+    private Path directory;
+
+    private static class Event {
+        private long timestamp;
+        private String kind;
+
+        private Event() {
+        }
+
+        private Event(long timestamp, String kind) {
+            this.timestamp = timestamp;
+            this.kind = kind;
+        }
+    }
+
+    private static byte[] key(long value) {
+        return IndexKey.INTEGRAL.encode(value);
+    }
+
+    private static List<Long> decode(List<byte[]> values) {
+        return values.stream().map(value -> Long.parseLong(new String(value, StandardCharsets.UTF_8))).toList();
+    }
+
+    @Test
+    @DisplayName("Random inserts split pages and ranges come back in key order after a reopen")
+    void range_whenInsertedAndReopened_thenOrdered() {
+        List<Long> keys = new ArrayList<>(IntStream.range(-5_000, 5_000).mapToObj(i -> (long) i).toList());
+        Collections.shuffle(keys, new Random(7));
+        Path file = directory.resolve("tree.bpt");
+        try (BPlusTree tree = BPlusTree.open(file)) {
+            for (long key : keys) {
+                tree.insert(key(key), String.valueOf(key).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        try (BPlusTree tree = BPlusTree.open(file)) {
+            assertThat(tree.entries()).isEqualTo(10_000);
+            assertThat(decode(tree.range(key(-10), key(10), false)))
+                    .containsExactlyElementsOf(IntStream.rangeClosed(-10, 10).mapToObj(i -> (long) i).toList());
+            assertThat(decode(tree.range(key(4_990), null, false))).hasSize(10).startsWith(4_990L);
+            assertThat(decode(tree.ordered(false, 3))).containsExactly(4_999L, 4_998L, 4_997L);
+            assertThat(decode(tree.ordered(true, 2))).containsExactly(-5_000L, -4_999L);
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk loading a sorted scan builds the same tree as inserting one by one")
+    void bulkLoad_whenSorted_thenSameRanges() {
+        List<byte[][]> entries = IntStream.range(0, 20_000)
+                .mapToObj(i -> new byte[][]{key(i / 3), String.valueOf(i).getBytes(StandardCharsets.UTF_8)})
+                .toList();
+        try (BPlusTree tree = BPlusTree.bulkLoad(directory.resolve("bulk.bpt"), entries.iterator())) {
+            assertThat(decode(tree.range(key(100), key(101), false)))
+                    .containsExactly(300L, 301L, 302L, 303L, 304L, 305L);
+            tree.insert(key(100), "x".getBytes(StandardCharsets.UTF_8));
+            assertThat(tree.range(key(100), key(100), false)).hasSize(4);
+            assertThat(tree.ordered(true, Integer.MAX_VALUE)).hasSize(20_001);
+        }
+    }
+
+    @Test
+    @DisplayName("Indexed fields answer range, prefix and limited ordered finds from the leaves")
+    void find_whenIndexed_thenServedByIndex() {
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        for (int i = 0; i < 300; i++) {
+            session.insert(new Event(i, (i % 2 == 0 ? "even" : "odd") + i));
+        }
+        session.persist();
+        session.createIndex(Event.class, "timestamp");
+        session.createIndex(Event.class, "kind");
+        session.insert(new Event(1_000, "even1000"));
+        session.delete(Event.class, new AttributeFilter("timestamp", RangePredicate.lessThan(100L)));
+        session.persist();
+        var recent = new AttributeFilter("timestamp", RangePredicate.greaterThan(290L))
+                .and(new AttributeFilter("kind", PrefixPredicate.startsWith("even")));
+        assertThat(session.find(Event.class, recent)).extracting(event -> event.timestamp)
+                .containsExactlyInAnyOrder(292L, 294L, 296L, 298L, 1_000L);
+        assertThat(session.find(Event.class, new AttributeFilter("timestamp", RangePredicate.atMost(101L))))
+                .extracting(event -> event.timestamp)
+                .containsExactlyInAnyOrder(100L, 101L);
+        assertThat(session.find(Event.class, new AttributeFilter("kind", PrefixPredicate.startsWith("odd")),
+                Ordering.descending("timestamp").limit(2)))
+                .extracting(event -> event.timestamp)
+                .containsExactly(299L, 297L);
+        var index = FieldIndex.of(Event.class, directory.resolve(Event.class.getName())).get("timestamp");
+        assertThat(index.candidates(RangePredicate.atMost(99L)).orElseThrow()).hasSize(100);
+        assertThat(index.candidates(RangePredicate.greaterThan(1.5)).orElseThrow()).hasSize(299);
+        assertThat(index.candidates(PrefixPredicate.startsWith("1"))).isEmpty();
+    }
+}
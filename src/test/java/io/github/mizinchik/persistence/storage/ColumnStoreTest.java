@@ -0,0 +1,102 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.RangePredicate;
+import io.github.mizinchik.persistence.session.JsonSession;
+import io.github.mizinchik.persistence.session.Session;
+import io.github.mizinchik.persistence.serialization.JsonSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColumnStoreTest {
+    @TempDir
+    private Path directory;
+
+    private static class Wide {
+        private int id;
+        private String name;
+        private double score;
+        private List<String> tags;
+
+        private Wide() {
+        }
+
+        private Wide(int id, String name, double score, List<String> tags) {
+            this.id = id;
+            this.name = name;
+            this.score = score;
+            this.tags = tags;
+        }
+    }
+
+    private List<Path> write(int count) throws IOException {
+        List<Path> rows = new ArrayList<>();
+        JsonSerializer serializer = new JsonSerializer();
+        for (int i = 0; i < count; i++) {
+            Path row = directory.resolve(i + ".jvivo");
+            Files.writeString(row, serializer.serialize(new Wide(i, "name" + i, i / 2.0, List.of("t" + i))));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Row groups outside of the filtered range are skipped by statistics")
+    void find_whenRangeFilter_thenGroupsPruned() throws IOException {
+        var store = new ColumnStore<>(Wide.class, directory, 0);
+        store.compact(write(100), 10);
+        var filter = new AttributeFilter("id", RangePredicate.between(25, 34));
+        assertThat(store.matchingGroups(filter)).isEqualTo(2);
+        assertThat(store.find(filter)).extracting(wide -> wide.id)
+                .containsExactlyElementsOf(List.of(25, 26, 27, 28, 29, 30, 31, 32, 33, 34));
+        assertThat(store.matchingGroups(new AttributeFilter("id", RangePredicate.greaterThan(99)))).isZero();
+        assertThat(store.matchingGroups(new AttributeFilter("id", RangePredicate.lessThan(5).negate())))
+                .isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Combined and opaque predicates keep the scan correct")
+    void find_whenCombinedFilter_thenSameAsRowScan() throws IOException {
+        var store = new ColumnStore<>(Wide.class, directory, 0);
+        store.compact(write(50), 8);
+        var filter = new AttributeFilter("score", RangePredicate.atLeast(20.0))
+                .or(new AttributeFilter("name", (String name) -> name.equals("name3")));
+        assertThat(store.matchingGroups(filter)).isEqualTo(7);
+        assertThat(store.find(filter)).extracting(wide -> wide.id)
+                .containsExactlyElementsOf(List.of(3, 40, 41, 42, 43, 44, 45, 46, 47, 48, 49));
+        var restored = store.find(new AttributeFilter("id", RangePredicate.equalTo(7))).getFirst();
+        assertThat(restored).usingRecursiveComparison().isEqualTo(new Wide(7, "name7", 3.5, List.of("t7")));
+    }
+
+    @Test
+    @DisplayName("Columnar classes are compacted lazily and dropped once a newer version is published")
+    void find_whenColumnarSession_thenColumnsRebuilt() {
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        session.setColumnar(Wide.class, true);
+        for (int i = 0; i < 20; i++) {
+            session.insert(new Wide(i, "name" + i, i, List.of()));
+        }
+        var filter = new AttributeFilter("id", RangePredicate.atLeast(18));
+        assertThat(session.find(Wide.class, filter)).hasSize(2);
+        Path columns = directory.resolve(Wide.class.getName()).resolve(ColumnStore.DIRECTORY);
+        assertThat(columns).isNotEmptyDirectory();
+        session.insert(new Wide(30, "name30", 30, List.of()));
+        session.delete(Wide.class, new AttributeFilter("id", RangePredicate.equalTo(19)));
+        session.persist();
+        assertThat(columns).isEmptyDirectory();
+        assertThat(session.find(Wide.class, filter)).extracting(wide -> wide.id)
+                .usingElementComparator(Comparator.naturalOrder())
+                .containsExactlyInAnyOrder(18, 30);
+    }
+}
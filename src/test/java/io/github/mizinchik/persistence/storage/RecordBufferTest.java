@@ -0,0 +1,79 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.session.JsonSession;
+import io.github.mizinchik.persistence.session.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecordBufferTest {
+    @TempDir
+    private Path directory;
+
+    private static class Reading {
+        private int sensor;
+        private String payload;
+
+        private Reading() {
+        }
+
+        private Reading(int sensor, String payload) {
+            this.sensor = sensor;
+            this.payload = payload;
+        }
+    }
+
+    @Test
+    @DisplayName("Records beyond the off-heap capacity spill to disk and all of them are read back")
+    void add_whenOverCapacity_thenSpills() {
+        var available = new AtomicLong(2L << 20);
+        var buffer = new RecordBuffer(available);
+        String payload = "x".repeat(1_000);
+        IntStream.range(0, 5_000).forEach(i -> buffer.add(i + payload));
+        assertThat(buffer.size()).isEqualTo(5_000);
+        assertThat(buffer.offHeapBytes()).isEqualTo(2L << 20);
+        assertThat(buffer.spilled()).isPositive();
+        assertThat(buffer.records()).hasSize(5_000).contains("0" + payload, "4999" + payload);
+        buffer.release();
+        assertThat(available.get()).isEqualTo(2L << 20);
+        assertThat(buffer.records()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Sessions keep pending inserts off-heap and persist the spilled ones too")
+    void persist_whenBufferSpilled_thenAllStored() {
+        Session session = new JsonSession(1L << 20);
+        session.setDirectory(directory);
+        String payload = "y".repeat(500);
+        IntStream.range(0, 3_000).forEach(i -> session.insert(new Reading(i, payload)));
+        assertThat(session.find(Reading.class)).hasSize(3_000);
+        session.persist();
+        assertThat(session.find(Reading.class)).extracting(reading -> reading.sensor)
+                .containsExactlyInAnyOrderElementsOf(IntStream.range(0, 3_000).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("Equal pending records are kept once, in memory and in the spill file alike")
+    void add_whenEqualRecords_thenStoredOnce() {
+        var buffer = new RecordBuffer(new AtomicLong(1L << 20));
+        String payload = "z".repeat(1_000);
+        IntStream.range(0, 2_000).forEach(i -> buffer.add(i + payload));
+        IntStream.range(0, 2_000).forEach(i -> buffer.add(i + payload));
+        assertThat(buffer.spilled()).isPositive();
+        assertThat(buffer.size()).isEqualTo(2_000);
+        assertThat(buffer.records()).doesNotHaveDuplicates();
+        buffer.release();
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        session.insert(new Reading(1, payload));
+        session.insert(new Reading(1, payload));
+        session.persist();
+        assertThat(session.find(Reading.class)).hasSize(1);
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.RangePredicate;
+import io.github.mizinchik.persistence.session.JsonSession;
+import io.github.mizinchik.persistence.session.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VersionsTest {
+    @TempDir
+    private Path directory;
+
+    private static class Counter {
+        private int batch;
+        private int index;
+
+        private Counter() {
+        }
+
+        private Counter(int batch, int index) {
+            this.batch = batch;
+            this.index = index;
+        }
+    }
+
+    @Test
+    @DisplayName("A pinned snapshot keeps its files until it is released")
+    void pin_whenFilesRetired_thenKeptUntilClosed() throws Exception {
+        Path classDirectory = directory.resolve("pinned");
+        Files.createDirectories(classDirectory);
+        Files.writeString(classDirectory.resolve("a.jvivo"), "{}");
+        var snapshot = Versions.pin(classDirectory.resolve("..").resolve("pinned"));
+        Versions.update(classDirectory, files -> new Versions.Change(Set.of(), Set.of("a.jvivo")));
+        try (var current = Versions.pin(classDirectory)) {
+            assertThat(current.files()).isEmpty();
+        }
+        assertThat(snapshot.files()).containsExactly("a.jvivo");
+        assertThat(classDirectory.resolve("a.jvivo")).exists();
+        snapshot.close();
+        assertThat(classDirectory.resolve("a.jvivo")).doesNotExist();
+        assertThat(Versions.isRegistered(classDirectory)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Changes are detected by the manifest sequence, not the directory modification time")
+    void pin_whenManifestAppendedWithinSameModificationTime_thenRefreshed() throws Exception {
+        Path classDirectory = directory.resolve("sequenced");
+        Files.createDirectories(classDirectory);
+        Files.writeString(classDirectory.resolve("a.jvivo"), "{}");
+        try (var first = Versions.pin(classDirectory)) {
+            assertThat(first.files()).containsExactly("a.jvivo");
+            var modified = Files.getLastModifiedTime(classDirectory);
+            Files.writeString(classDirectory.resolve("b.jvivo"), "{}");
+            Manifest.append(classDirectory, Map.of("b.jvivo", 2L), Set.of());
+            Files.setLastModifiedTime(classDirectory, modified);
+            try (var second = Versions.pin(classDirectory)) {
+                assertThat(second.files()).containsExactlyInAnyOrder("a.jvivo", "b.jvivo");
+                assertThat(second.paths()).isSameAs(second.paths());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent finds observe whole persist batches and never fail")
+    void find_whenConcurrentPersist_thenConsistentSnapshots() throws Exception {
+        int batches = 30;
+        int batchSize = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                Session session = new JsonSession();
+                session.setDirectory(directory);
+                for (int batch = 0; batch < batches; batch++) {
+                    for (int i = 0; i < batchSize; i++) {
+                        session.insert(new Counter(batch, i));
+                    }
+                    session.delete(Counter.class, new AttributeFilter("batch", RangePredicate.lessThan(batch - 1)));
+                    session.persist();
+                }
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int reader = 0; reader < 3; reader++) {
+                readers.add(executor.submit(() -> {
+                    Session session = new JsonSession();
+                    session.setDirectory(directory);
+                    while (!writer.isDone()) {
+                        List<Counter> found = session.find(Counter.class);
+                        assertThat(found.size() % batchSize).isZero();
+                        assertThat(found.size()).isLessThanOrEqualTo(2 * batchSize);
+                    }
+                }));
+            }
+            writer.get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        assertThat(session.find(Counter.class)).hasSize(2 * batchSize);
+        try (var files = Files.list(directory.resolve(Counter.class.getName()))) {
+            assertThat(files.filter(file -> file.toString().endsWith(".jvivo")).count()).isEqualTo(2 * batchSize);
+        }
+    }
+
+    @Test
+    @DisplayName("The file set and sizes come from the manifest kept up to date by every persist")
+    void pin_whenManifestWritten_thenDirectoryNotListed() throws Exception {
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        for (int batch = 0; batch < 3; batch++) {
+            for (int i = 0; i < 5; i++) {
+                session.insert(new Counter(batch, i));
+            }
+            session.persist();
+        }
+        session.delete(Counter.class, new AttributeFilter("batch", RangePredicate.equalTo(0)));
+        session.persist();
+        Path classDirectory = directory.resolve(Counter.class.getName());
+        assertThat(Files.readAllLines(classDirectory.resolve(Manifest.FILE)).stream()
+                .filter(line -> !line.startsWith("#"))).hasSize(20);
+        Files.writeString(classDirectory.resolve("stray.jvivo"), "{\"batch\":9,\"index\":9}");
+        try (var snapshot = Versions.pin(classDirectory)) {
+            assertThat(snapshot.files()).hasSize(10).doesNotContain("stray.jvivo");
+            for (var entry : snapshot.sizes().entrySet()) {
+                assertThat(entry.getValue()).isEqualTo(Files.size(classDirectory.resolve(entry.getKey())));
+            }
+            assertThat(snapshot.bytes()).isPositive();
+        }
+        assertThat(session.find(Counter.class)).hasSize(10);
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.RangePredicate;
+import io.github.mizinchik.persistence.session.JsonSession;
+import io.github.mizinchik.persistence.session.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class WriteAheadLogTest {
+    @TempDir
+    private Path directory;
+
+    private static class Account {
+        private int id;
+
+        private Account() {
+        }
+
+        private Account(int id) {
+            this.id = id;
+        }
+    }
+
+    private static class Transfer {
+        private int from;
+
+        private Transfer() {
+        }
+
+        private Transfer(int from) {
+            this.from = from;
+        }
+    }
+
+    private long countFiles(Path classDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(classDirectory)) {
+            return files.filter(file -> file.toString().endsWith(".jvivo")).count();
+        }
+    }
+
+    @Test
+    @DisplayName("One log entry covers all the classes of a persist and a checkpoint empties the log")
+    void persist_whenSeveralClasses_thenSingleEntry() throws IOException {
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        session.insert(new Account(1));
+        session.insert(new Account(2));
+        session.insert(new Transfer(1));
+        session.persist();
+        var log = directory.resolve(WriteAheadLog.FILE);
+        assertThat(Files.readAllLines(log)).hasSize(1);
+        session.delete(Account.class, new AttributeFilter("id", RangePredicate.equalTo(1)));
+        session.persist();
+        assertThat(Files.readAllLines(log)).hasSize(2);
+        assertThat(WriteAheadLog.of(directory).checkpoint()).isTrue();
+        assertThat(log).isEmptyFile();
+        assertThat(WriteAheadLog.of(directory).size()).isZero();
+        assertThat(session.find(Account.class)).extracting(account -> account.id).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("Committed entries are replayed on open and a torn tail is ignored")
+    void setDirectory_whenLogNotApplied_thenReplayed() throws IOException {
+        Path crashed = directory.resolve("crashed");
+        Path classDirectory = crashed.resolve(Account.class.getName());
+        Files.createDirectories(classDirectory);
+        Files.writeString(classDirectory.resolve("old.jvivo"), "{\"id\":0}");
+        Files.writeString(classDirectory.resolve("half.jvivo"), "{\"id\":");
+        String entry = "{\"" + Account.class.getName() + "\":{\"inserts\":{\"half.jvivo\":\"{\\\"id\\\":1}\","
+                + "\"new.jvivo\":\"{\\\"id\\\":2}\"},\"deletes\":[\"old.jvivo\"]}}";
+        var checksum = new CRC32();
+        checksum.update(entry.getBytes());
+        Files.writeString(crashed.resolve(WriteAheadLog.FILE),
+                Long.toHexString(checksum.getValue()) + " " + entry + "\n" + "1234 {\"torn\":", StandardOpenOption.CREATE);
+        Session session = new JsonSession();
+        session.setDirectory(crashed);
+        assertThat(crashed.resolve(WriteAheadLog.FILE)).isEmptyFile();
+        assertThat(countFiles(classDirectory)).isEqualTo(2);
+        assertThat(session.find(Account.class)).extracting(account -> account.id).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    @DisplayName("A failed persist keeps the inserts so that a retry writes them exactly once")
+    void persist_whenLogUnwritable_thenInsertsKept() throws IOException {
+        Path blocked = directory.resolve("blocked");
+        Session session = new JsonSession();
+        session.setDirectory(blocked);
+        Files.createDirectories(blocked.resolve(WriteAheadLog.FILE));
+        session.insert(new Account(7));
+        assertThatThrownBy(session::persist).isInstanceOf(RuntimeException.class);
+        assertThat(countFiles(blocked.resolve(Account.class.getName()))).isZero();
+        Files.delete(blocked.resolve(WriteAheadLog.FILE));
+        session.persist();
+        session.persist();
+        assertThat(session.find(Account.class)).extracting(account -> account.id).containsExactly(7);
+    }
+
+    @Test
+    @DisplayName("A persist failing after the log append keeps its inserts and marks the entry aborted")
+    void persist_whenWriteFailsAfterAppend_thenInsertsKept() throws IOException {
+        Path failing = directory.resolve("failing");
+        Path classDirectory = failing.resolve(Account.class.getName());
+        Session session = new JsonSession();
+        session.setDirectory(failing);
+        Files.createDirectories(classDirectory);
+        Files.writeString(classDirectory.resolve(ZoneMap.DIRECTORY), "");
+        session.insert(new Account(7));
+        session.insert(new Account(8));
+        assertThatThrownBy(session::persist).isInstanceOf(RuntimeException.class);
+        assertThat(Files.readAllLines(failing.resolve(WriteAheadLog.FILE))).hasSize(2);
+        assertThat(countFiles(classDirectory)).isZero();
+        assertThat(session.find(Account.class)).extracting(account -> account.id).containsExactlyInAnyOrder(7, 8);
+        Path replayed = directory.resolve("replayed");
+        Files.createDirectories(replayed);
+        Files.copy(failing.resolve(WriteAheadLog.FILE), replayed.resolve(WriteAheadLog.FILE));
+        assertThat(WriteAheadLog.of(failing).checkpoint()).isTrue();
+        Session recovered = new JsonSession();
+        recovered.setDirectory(replayed);
+        assertThat(recovered.find(Account.class)).isEmpty();
+        Files.delete(classDirectory.resolve(ZoneMap.DIRECTORY));
+        session.persist();
+        assertThat(countFiles(classDirectory)).isEqualTo(2);
+        assertThat(session.find(Account.class)).extracting(account -> account.id).containsExactlyInAnyOrder(7, 8);
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.mizinchik.persistence.storage;
+
+import io.github.mizinchik.persistence.filtering.AttributeFilter;
+import io.github.mizinchik.persistence.filtering.RangePredicate;
+import io.github.mizinchik.persistence.session.JsonSession;
+import io.github.mizinchik.persistence.session.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZoneMapTest {
+    @TempDir
+    private Path directory;
+
+    private static class Event {
+        private long timestamp;
+        private String kind;
+
+        private Event() {
+        }
+
+        private Event(long timestamp, String kind) {
+            this.timestamp = timestamp;
+            this.kind = kind;
+        }
+    }
+
+    private Session persistBatches(int batches, int batchSize) {
+        Session session = new JsonSession();
+        session.setDirectory(directory);
+        for (int batch = 0; batch < batches; batch++) {
+            for (int i = 0; i < batchSize; i++) {
+                long timestamp = (long) batch * batchSize + i;
+                session.insert(new Event(timestamp, "kind" + timestamp));
+            }
+            session.persist();
+        }
+        return session;
+    }
+
+    private long countZones() throws IOException {
+        try (Stream<Path> zones = Files.list(directory.resolve(Event.class.getName()).resolve(ZoneMap.DIRECTORY))) {
+            return zones.count();
+        }
+    }
+
+    @Test
+    @DisplayName("Every persist batch records statistics and time ranges skip the old batches")
+    void excluded_whenRangeFilter_thenOldBatchesSkipped() throws IOException {
+        var session = persistBatches(5, 10);
+        assertThat(countZones()).isEqualTo(5);
+        var zoneMap = new ZoneMap(Event.class, directory.resolve(Event.class.getName()));
+        var recent = new AttributeFilter("timestamp", RangePredicate.atLeast(45L));
+        assertThat(zoneMap.excluded(recent)).hasSize(40);
+        assertThat(session.find(Event.class, recent)).extracting(event -> event.timestamp)
+                .containsExactlyInAnyOrder(45L, 46L, 47L, 48L, 49L);
+        assertThat(zoneMap.excluded(new AttributeFilter("timestamp", (Long timestamp) -> timestamp > 45)))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Equality filters are answered by the Bloom filters of the batches")
+    void excluded_whenEqualityFilter_thenBloomFilterSkips() throws IOException {
+        var session = persistBatches(4, 25);
+        var zoneMap = new ZoneMap(Event.class, directory.resolve(Event.class.getName()));
+        assertThat(zoneMap.excluded(new AttributeFilter("kind", RangePredicate.equalTo("kind60"))))
+                .hasSize(75);
+        assertThat(zoneMap.excluded(new AttributeFilter("kind", RangePredicate.equalTo("missing"))))
+                .hasSizeGreaterThanOrEqualTo(75);
+        assertThat(session.find(Event.class, new AttributeFilter("kind", RangePredicate.equalTo("kind60"))))
+                .extracting(event -> event.timestamp)
+                .containsExactly(60L);
+    }
+
+    @Test
+    @DisplayName("Zones of fully deleted batches are dropped")
+    void prune_whenBatchDeleted_thenZoneRemoved() throws IOException {
+        var session = persistBatches(3, 10);
+        session.delete(Event.class, new AttributeFilter("timestamp", RangePredicate.lessThan(10L)));
+        session.persist();
+        assertThat(countZones()).isEqualTo(2);
+        assertThat(session.find(Event.class)).hasSize(20);
+    }
+}